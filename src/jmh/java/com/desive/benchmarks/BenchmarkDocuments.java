@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2017  TextMd
+ *
+ * This file is part of TextMd.
+ *
+ * TextMd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.desive.benchmarks;
+
+import java.util.Scanner;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+ Resolves the document parameter of a benchmark. Names ending in .md are loaded from
+ the bundled assets/defaults, sizes like 10KB or 50MB are generated.
+*/
+public final class BenchmarkDocuments {
+
+    private static final Pattern SIZE_PATTERN = Pattern.compile("(\\d+)(KB|MB)", Pattern.CASE_INSENSITIVE);
+    private static final long SEED = 20171007L;
+
+    private BenchmarkDocuments() {
+    }
+
+    public static String load(String document) {
+        if(document.endsWith(".md")) {
+            return new Scanner(BenchmarkDocuments.class.getClassLoader().getResourceAsStream("assets/defaults/" + document))
+                    .useDelimiter("\\Z").next();
+        }
+        Matcher matcher = SIZE_PATTERN.matcher(document);
+        if(!matcher.matches())
+            throw new IllegalArgumentException("Unknown benchmark document '" + document + "'");
+        int size = Integer.parseInt(matcher.group(1)) * (matcher.group(2).equalsIgnoreCase("KB") ? 1024 : 1024 * 1024);
+        return new SyntheticDocumentGenerator(SEED).generate(size);
+    }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2017  TextMd
+ *
+ * This file is part of TextMd.
+ *
+ * TextMd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.desive.benchmarks;
+
+import com.desive.markdown.MarkdownParser;
+import com.vladsch.flexmark.ext.gfm.tasklist.TaskListExtension;
+import com.vladsch.flexmark.ext.tables.TablesExtension;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ The string conversions of MarkdownParser, each one parses the document itself.
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ConverterBenchmark {
+
+    @Param({"sample.md", "test.md", "help.md", "10KB", "1MB", "10MB", "50MB"})
+    private String document;
+
+    private MarkdownParser markdownParser;
+    private String markdown;
+
+    @Setup
+    public void setup() {
+        markdownParser = new MarkdownParser();
+        markdownParser.addExtension(TablesExtension.create());
+        markdownParser.addExtension(TaskListExtension.create());
+        markdown = BenchmarkDocuments.load(document);
+    }
+
+    @Benchmark
+    public String html() {
+        return markdownParser.convertToHTML(markdown);
+    }
+
+    @Benchmark
+    public String jira() {
+        return markdownParser.convertToJira(markdown);
+    }
+
+    @Benchmark
+    public String youtrack() {
+        return markdownParser.convertToYoutrack(markdown);
+    }
+
+    @Benchmark
+    public String text() {
+        return markdownParser.convertToText(markdown);
+    }
+
+}
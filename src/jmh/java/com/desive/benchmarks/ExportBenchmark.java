@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2017  TextMd
+ *
+ * This file is part of TextMd.
+ *
+ * TextMd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.desive.benchmarks;
+
+import com.desive.markdown.MarkdownParser;
+import com.vladsch.flexmark.ext.gfm.tasklist.TaskListExtension;
+import com.vladsch.flexmark.ext.tables.TablesExtension;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/*
+ The exports that go through html and a third party converter. Both are far slower
+ than the plain conversions so they only run on the smaller documents.
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExportBenchmark {
+
+    @Param({"sample.md", "test.md", "10KB", "1MB"})
+    private String document;
+
+    private MarkdownParser markdownParser;
+    private String markdown;
+    private File docx;
+
+    @Setup
+    public void setup() throws IOException {
+        markdownParser = new MarkdownParser();
+        markdownParser.addExtension(TablesExtension.create());
+        markdownParser.addExtension(TaskListExtension.create());
+        markdown = BenchmarkDocuments.load(document);
+        docx = File.createTempFile("textmd-benchmark", ".docx");
+    }
+
+    @TearDown
+    public void tearDown() {
+        docx.delete();
+    }
+
+    @Benchmark
+    public long docx() throws Exception {
+        markdownParser.convertToDocx(markdown, docx);
+        return docx.length();
+    }
+
+    @Benchmark
+    public String confluence() {
+        return markdownParser.markdownToConfluenceMarkup(markdown);
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2017  TextMd
+ *
+ * This file is part of TextMd.
+ *
+ * TextMd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.desive.benchmarks;
+
+import com.desive.markdown.MarkdownHighligher;
+import com.desive.markdown.syntax.MarkdownLexer;
+import com.desive.markdown.syntax.StyleLayer;
+import com.desive.markdown.syntax.SyntaxHighlighter;
+import com.google.common.collect.Lists;
+import javafx.embed.swing.JFXPanel;
+import org.fxmisc.richtext.CodeArea;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ Highlights a CodeArea that is not attached to a scene, the FX toolkit is started
+ once through a JFXPanel so the controls can be created. markdownLexer only lexes the
+ text into spans, the difference to syntaxHighlighter is the cost of styling the area.
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HighlighterBenchmark {
+
+    @Param({"sample.md", "test.md", "10KB", "100KB"})
+    private String document;
+
+    private SyntaxHighlighter syntaxHighlighter;
+    private CodeArea codeArea;
+    private String markdown;
+
+    @Setup
+    public void setup() {
+        new JFXPanel();
+        syntaxHighlighter = new SyntaxHighlighter();
+        markdown = BenchmarkDocuments.load(document);
+        codeArea = new CodeArea(markdown);
+    }
+
+    @Benchmark
+    public CodeArea syntaxHighlighter() {
+        codeArea.clearStyle(0, markdown.length());
+        syntaxHighlighter.compute(markdown, codeArea);
+        return codeArea;
+    }
+
+    @Benchmark
+    public List<StyleLayer.Span> markdownLexer() {
+        List<StyleLayer.Span> syntax = Lists.newArrayList(), tags = Lists.newArrayList();
+        new MarkdownLexer().lex(markdown, Lists.newArrayList(), syntax, tags);
+        return syntax;
+    }
+
+    @Benchmark
+    public CodeArea markdownHighlighter() {
+        codeArea.clearStyle(0, markdown.length());
+        MarkdownHighligher.computeHighlighting(markdown, codeArea);
+        return codeArea;
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2017  TextMd
+ *
+ * This file is part of TextMd.
+ *
+ * TextMd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.desive.benchmarks;
+
+import com.desive.markdown.MarkdownParser;
+import com.vladsch.flexmark.ext.tables.TablesExtension;
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.parser.Parser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ Compares a preview render with a freshly built Parser/HtmlRenderer pair (the old
+ behaviour of MarkdownParser.convertToHTML) against the cached pair.
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParserCacheBenchmark {
+
+    @Param({"sample.md", "test.md"})
+    private String document;
+
+    private MarkdownParser markdownParser;
+    private String markdown;
+
+    @Setup
+    public void setup() {
+        markdownParser = new MarkdownParser();
+        markdownParser.addExtension(TablesExtension.create());
+        markdown = BenchmarkDocuments.load(document);
+    }
+
+    @Benchmark
+    public String uncachedRender() {
+        Parser parser = Parser.builder(markdownParser.getOptions()).build();
+        HtmlRenderer renderer = HtmlRenderer.builder(markdownParser.getOptions()).build();
+        return renderer.render(parser.parse(markdown));
+    }
+
+    @Benchmark
+    public String cachedRender() {
+        return markdownParser.convertToHTML(markdown);
+    }
+
+}
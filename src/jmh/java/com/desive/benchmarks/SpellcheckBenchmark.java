@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2017  TextMd
+ *
+ * This file is part of TextMd.
+ *
+ * TextMd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.desive.benchmarks;
+
+import com.desive.utilities.Spellcheck;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ A full LanguageTool check of the prose of the document, the first check loads the
+ language resources so the warmup is longer than the other benchmarks.
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SpellcheckBenchmark {
+
+    @Param({"sample.md", "test.md", "10KB", "100KB"})
+    private String document;
+
+    @Param({"SPELLING", "GRAMMAR"})
+    private Spellcheck.Tier tier;
+
+    private Spellcheck spellcheck;
+    private String markdown;
+
+    @Setup
+    public void setup() {
+        System.setProperty("javax.xml.parsers.SAXParserFactory", "com.sun.org.apache.xerces.internal.jaxp.SAXParserFactoryImpl");
+        spellcheck = new Spellcheck();
+        markdown = BenchmarkDocuments.load(document);
+    }
+
+    @Benchmark
+    public List<Spellcheck.Misspelling> check() throws IOException {
+        return spellcheck.check(markdown, tier);
+    }
+
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2017  TextMd
+ *
+ * This file is part of TextMd.
+ *
+ * TextMd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.desive.benchmarks;
+
+import java.util.Random;
+
+/*
+ Builds markdown documents of a given size out of a fixed mix of headings, paragraphs
+ with inline markup, lists, task lists, tables, fenced code, quotes and rules. The same
+ size and seed always produce the same document so runs stay comparable.
+*/
+public class SyntheticDocumentGenerator {
+
+    private static final String[] WORDS = {
+            "markdown", "editor", "render", "preview", "document", "export", "table", "heading",
+            "paragraph", "list", "value", "parser", "syntax", "the", "a", "of", "and", "to", "in",
+            "is", "with", "for", "on", "that", "this", "text", "spelling", "color", "teh", "recieve"
+    };
+
+    private static final String[] LANGUAGES = {"java", "xml", "json", "bash", ""};
+
+    private final Random random;
+
+    public SyntheticDocumentGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    public String generate(int size) {
+        StringBuilder builder = new StringBuilder(size + 1024);
+        while(builder.length() < size) {
+            int block = random.nextInt(20);
+            if(block < 2) {
+                heading(builder);
+            }else if(block < 10) {
+                paragraph(builder);
+            }else if(block < 12) {
+                list(builder, false);
+            }else if(block < 13) {
+                list(builder, true);
+            }else if(block < 14) {
+                taskList(builder);
+            }else if(block < 16) {
+                table(builder);
+            }else if(block < 18) {
+                fence(builder);
+            }else if(block < 19) {
+                quote(builder);
+            }else{
+                builder.append("---\n");
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    private void heading(StringBuilder builder) {
+        builder.append(repeat('#', 1 + random.nextInt(6))).append(' ');
+        words(builder, 2 + random.nextInt(5));
+        builder.append('\n');
+    }
+
+    private void paragraph(StringBuilder builder) {
+        int lines = 1 + random.nextInt(5);
+        for(int line = 0; line < lines; line++) {
+            int words = 8 + random.nextInt(10);
+            for(int i = 0; i < words; i++) {
+                if(i > 0)
+                    builder.append(' ');
+                inline(builder);
+            }
+            builder.append('\n');
+        }
+    }
+
+    private void inline(StringBuilder builder) {
+        String word = word();
+        switch (random.nextInt(30)) {
+            case 0: builder.append("**").append(word).append("**"); break;
+            case 1: builder.append('*').append(word).append('*'); break;
+            case 2: builder.append("__").append(word).append("__"); break;
+            case 3: builder.append("~~").append(word).append("~~"); break;
+            case 4: builder.append('`').append(word).append('`'); break;
+            case 5: builder.append('[').append(word).append("](https://example.com/").append(word).append(')'); break;
+            case 6: builder.append("![").append(word).append("](https://example.com/").append(word).append(".png)"); break;
+            default: builder.append(word);
+        }
+    }
+
+    private void list(StringBuilder builder, boolean ordered) {
+        int items = 2 + random.nextInt(6);
+        for(int i = 0; i < items; i++) {
+            builder.append(ordered ? (i + 1) + ". " : "- ");
+            words(builder, 3 + random.nextInt(8));
+            builder.append('\n');
+            if(random.nextInt(4) == 0) {
+                builder.append("    - ");
+                words(builder, 2 + random.nextInt(5));
+                builder.append('\n');
+            }
+        }
+    }
+
+    private void taskList(StringBuilder builder) {
+        int items = 2 + random.nextInt(4);
+        for(int i = 0; i < items; i++) {
+            builder.append(random.nextBoolean() ? "- [x] " : "- [ ] ");
+            words(builder, 3 + random.nextInt(6));
+            builder.append('\n');
+        }
+    }
+
+    private void table(StringBuilder builder) {
+        int columns = 2 + random.nextInt(4), rows = 2 + random.nextInt(10);
+        for(int row = -1; row < rows; row++) {
+            builder.append('|');
+            for(int column = 0; column < columns; column++) {
+                builder.append(' ');
+                if(row == -1) {
+                    builder.append(word());
+                }else{
+                    inline(builder);
+                }
+                builder.append(" |");
+            }
+            builder.append('\n');
+            if(row == -1)
+                builder.append(repeat("| --- ", columns)).append("|\n");
+        }
+    }
+
+    private void fence(StringBuilder builder) {
+        builder.append("```").append(LANGUAGES[random.nextInt(LANGUAGES.length)]).append('\n');
+        int lines = 3 + random.nextInt(15);
+        for(int i = 0; i < lines; i++) {
+            builder.append(repeat(' ', 4 * random.nextInt(3)));
+            words(builder, 2 + random.nextInt(6));
+            builder.append(random.nextBoolean() ? ";\n" : "\n");
+        }
+        builder.append("```\n");
+    }
+
+    private void quote(StringBuilder builder) {
+        int lines = 1 + random.nextInt(3);
+        for(int i = 0; i < lines; i++) {
+            builder.append("> ");
+            words(builder, 6 + random.nextInt(8));
+            builder.append('\n');
+        }
+    }
+
+    private void words(StringBuilder builder, int count) {
+        for(int i = 0; i < count; i++) {
+            if(i > 0)
+                builder.append(' ');
+            builder.append(word());
+        }
+    }
+
+    private String word() {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static String repeat(char c, int count) {
+        return repeat(String.valueOf(c), count);
+    }
+
+    private static String repeat(String text, int count) {
+        StringBuilder builder = new StringBuilder(text.length() * count);
+        for(int i = 0; i < count; i++)
+            builder.append(text);
+        return builder.toString();
+    }
+
+}
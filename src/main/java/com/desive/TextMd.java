@@ -25,9 +25,13 @@ import com.desive.stages.dialogs.DialogFactory;
 import com.desive.utilities.Fonts;
 import com.desive.utilities.Http;
 import com.desive.utilities.Settings;
+import com.desive.utilities.Spellcheck;
+import com.desive.utilities.StartupProfiler;
 import com.desive.utilities.Utils;
 import com.desive.utilities.constants.Dictionary;
+import com.google.common.collect.Maps;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.stage.Stage;
 import org.apache.maven.model.Model;
 import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
@@ -37,6 +41,9 @@ import org.slf4j.LoggerFactory;
 
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Properties;
 
 import static java.lang.String.join;
 
@@ -53,39 +60,65 @@ public class TextMd extends Application{
     public void start(Stage primaryStage) {
         primaryStage.close(); // Throw away the default stage
 
-        loadPomVariables();
+        StartupProfiler.begin("metadata");
+        loadMetadata();
 
+        StartupProfiler.begin("utilities");
         Dictionary languageDictionary = new Dictionary(NAME);
         Http http = new Http();
         fonts = new Fonts();
         DialogFactory dialogFactory = new DialogFactory(languageDictionary);
 
         loadUtilities();
-        loadFonts();
 
         logger.info("Starting {} v{}" , join(".", GROUP_ID, ARTIFACT_ID), VERSION);
 
+        StartupProfiler.begin("settings stage");
         SettingsStage settingsStage = new SettingsStage(languageDictionary);
+        StartupProfiler.begin("editor stage");
         EditorStage editorStage = new EditorStage(languageDictionary, dialogFactory, settingsStage);
         settingsStage.initOwner(editorStage);
         dialogFactory.initOwner(editorStage);
+
+        // Runs once the window is up, everything that is not needed to edit loads after that
+        Platform.runLater(() -> {
+            StartupProfiler.finish();
+            startWarmUp();
+        });
+    }
+
+    /*
+     Fonts and the spellchecker load on a background thread after the window is shown,
+     text is drawn with the fallback font until then. docx4j and the Atlassian renderer
+     are left to the first export that needs them.
+    */
+    private void startWarmUp() {
+        Thread warmUp = new Thread(() -> {
+            long start = System.currentTimeMillis();
+            loadFonts();
+            logger.debug("Loaded fonts in {}ms", System.currentTimeMillis() - start);
+            if(Settings.EDITOR_LIVE_SPELLCHECK)
+                Spellcheck.warmUp();
+        }, "warm-up");
+        warmUp.setDaemon(true);
+        warmUp.start();
     }
 
     private void loadFonts(){
         if(Settings.LOAD_FONTS_AT_RUNTIME) {
             logger.info("Using \'{}\' fonts", fonts.COURIER_PRIMAL_NAME);
             if(!fonts.fontExits(fonts.COURIER_PRIMAL_NAME)){
-                logger.info("Downloading fonts...");
+                logger.info("Loading fonts...");
+                Map<String, String> courierPrimal = fonts.getCourierPrimalFonts();
+                Map<Fonts.Source, Integer> sources = Maps.newEnumMap(Fonts.Source.class);
+                int registered = 0;
                 Utils.printProgress(100, 1);
-                fonts.registerFont(fonts.COURIER_PRIMAL_URL, fonts.COURIER_PRIMAL_NAME);
-                Utils.printProgress(100, 25);
-                fonts.registerFont(fonts.COURIER_PRIMAL_ITALICS_URL, fonts.COURIER_PRIMAL_ITALICS_NAME);
-                Utils.printProgress(100, 50);
-                fonts.registerFont(fonts.COURIER_PRIMAL_BOLD_URL, fonts.COURIER_PRIMAL_BOLD_NAME);
-                Utils.printProgress(100, 75);
-                fonts.registerFont(fonts.COURIER_PRIMAL_BOLD_ITALICS_URL, fonts.COURIER_PRIMAL_BOLD_ITALICS_NAME);
-                Utils.printProgress(100, 100);
+                for(Map.Entry<String, String> font : courierPrimal.entrySet()) {
+                    sources.merge(fonts.registerFont(font.getValue(), font.getKey()), 1, Integer::sum);
+                    Utils.printProgress(100, 100 * ++registered / courierPrimal.size());
+                }
                 System.out.println();
+                logger.info("Loaded fonts: {}", sources);
             }
         } else {
             logger.info("Using \'{}\' font", fonts.COURIER_REGULAR_NAME);
@@ -93,6 +126,30 @@ public class TextMd extends Application{
 
     }
 
+    /*
+     The project name and version are copied into textmd.properties when the resources are
+     processed. Reading the pom with maven-model is only the fallback for runs where they
+     were not, since loading the model classes alone is a noticeable part of the start up.
+    */
+    private void loadMetadata() {
+        try(InputStream in = getClass().getClassLoader().getResourceAsStream("textmd.properties")) {
+            if(in != null) {
+                Properties properties = new Properties();
+                properties.load(in);
+                NAME = properties.getProperty("name");
+                if(NAME != null && !NAME.startsWith("${")) {
+                    ARTIFACT_ID = properties.getProperty("artifactId");
+                    VERSION = properties.getProperty("version");
+                    GROUP_ID = properties.getProperty("groupId");
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to read textmd.properties", e);
+        }
+        loadPomVariables();
+    }
+
     private void loadPomVariables() {
         logger.debug("Loading maven pom.xml variables");
         MavenXpp3Reader reader = new MavenXpp3Reader();
@@ -108,11 +165,11 @@ public class TextMd extends Application{
     }
 
     private void loadUtilities(){
-        new Utils();
         System.setProperty("javax.xml.parsers.SAXParserFactory", "com.sun.org.apache.xerces.internal.jaxp.SAXParserFactoryImpl"); // Fix xerces SAXParserFactory for language tool
     }
 
     public static void main(String[] args) {
+        StartupProfiler.begin("toolkit");
         launch(args);
     }
 
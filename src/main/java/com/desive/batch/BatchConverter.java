@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2017  TextMd
+ *
+ * This file is part of TextMd.
+ *
+ * TextMd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.desive.batch;
+
+import com.desive.markdown.MarkdownParser;
+import com.desive.markdown.ParsedDocument;
+import com.desive.markdown.ParserConfiguration;
+import com.google.common.collect.Lists;
+import com.vladsch.flexmark.Extension;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/*
+ Converts a directory tree of markdown files without starting the editor.
+
+   java -cp textmd-jar-with-dependencies.jar com.desive.batch.BatchConverter
+        <input dir> <output dir> <target>[,<target>...] [--threads n] [--extensions ext[,ext...]]
+
+ Every file is parsed once and converted to all targets on a fork-join pool, the output
+ mirrors the input tree. Exits with 1 when any conversion failed.
+*/
+public class BatchConverter {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchConverter.class);
+
+    private final MarkdownParser markdownParser;
+    private final List<ConversionTarget> targets;
+    private final AtomicInteger failures = new AtomicInteger(0);
+
+    public BatchConverter(MarkdownParser markdownParser, List<ConversionTarget> targets) {
+        this.markdownParser = markdownParser;
+        this.targets = targets;
+    }
+
+    public int convert(Path input, Path output, int threads) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(input)) {
+            files = walk.filter(Files::isRegularFile)
+                    .filter(path -> path.getFileName().toString().toLowerCase().endsWith(".md"))
+                    .collect(Collectors.toList());
+        }
+        logger.info("Converting {} file(s) to {} on {} thread(s)", files.size(), targets, threads);
+
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new ConvertFiles(input, output, files));
+        } finally {
+            pool.shutdown();
+        }
+        System.out.println(String.format("Converted %d file(s) in %dms, %d failure(s)",
+                files.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), failures.get()));
+        return failures.get();
+    }
+
+    private void convertFile(Path input, Path output, Path file) {
+        Path relative = input.relativize(file);
+        String baseName = relative.getFileName().toString().replaceAll("(?i)\\.md$", "");
+        long start = System.nanoTime();
+        ParsedDocument document;
+        try {
+            Path directory = output.resolve(relative).getParent();
+            Files.createDirectories(directory);
+            document = markdownParser.parse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            logger.error("Failed to read {}", file, e);
+            failures.incrementAndGet();
+            return;
+        }
+        long parseTime = System.nanoTime() - start;
+
+        StringBuilder timings = new StringBuilder();
+        for(ConversionTarget target : targets) {
+            File out = output.resolve(relative).resolveSibling(baseName + target.getFileExtension()).toFile();
+            long targetStart = System.nanoTime();
+            try {
+                target.convert(markdownParser, document, out);
+                timings.append(String.format(" %s=%dms", target.getName(),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - targetStart)));
+            } catch (Exception e) {
+                logger.error("Failed to convert {} to {}", file, target.getName(), e);
+                timings.append(String.format(" %s=failed", target.getName()));
+                failures.incrementAndGet();
+            }
+        }
+        System.out.println(String.format("%6dms %s (parse=%dms%s)",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), relative,
+                TimeUnit.NANOSECONDS.toMillis(parseTime), timings));
+    }
+
+    // Splits the file list in halves until a single file is left
+    private class ConvertFiles extends RecursiveAction {
+
+        private final Path input, output;
+        private final List<Path> files;
+
+        ConvertFiles(Path input, Path output, List<Path> files) {
+            this.input = input;
+            this.output = output;
+            this.files = files;
+        }
+
+        @Override
+        protected void compute() {
+            if(files.size() <= 1) {
+                files.forEach(file -> convertFile(input, output, file));
+                return;
+            }
+            int middle = files.size() / 2;
+            invokeAll(new ConvertFiles(input, output, files.subList(0, middle)),
+                    new ConvertFiles(input, output, files.subList(middle, files.size())));
+        }
+
+    }
+
+    private static void printUsage() {
+        System.out.println("Usage: BatchConverter <input dir> <output dir> <target>[,<target>...] [--threads n] [--extensions ext[,ext...]]");
+        System.out.println("  targets:    " + Stream.of(ConversionTarget.values()).map(ConversionTarget::getName).collect(Collectors.joining(", ")));
+        System.out.println("  extensions: " + String.join(", ", ParserConfiguration.getOptionalExtensionNames()));
+    }
+
+    public static void main(String[] args) throws IOException {
+        if(args.length < 3) {
+            printUsage();
+            System.exit(2);
+        }
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<Extension> extensions = Lists.newArrayList();
+        List<ConversionTarget> targets;
+        try {
+            targets = Stream.of(args[2].split(",")).map(ConversionTarget::fromName).collect(Collectors.toList());
+            for(int i = 3; i < args.length; i++) {
+                if(args[i].equals("--threads") && i + 1 < args.length) {
+                    threads = Integer.parseInt(args[++i]);
+                }else if(args[i].equals("--extensions") && i + 1 < args.length) {
+                    for(String name : args[++i].split(","))
+                        extensions.add(ParserConfiguration.createOptionalExtension(name));
+                }else{
+                    throw new IllegalArgumentException("Unknown option '" + args[i] + "'");
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            printUsage();
+            System.exit(2);
+            return;
+        }
+
+        MarkdownParser markdownParser = new MarkdownParser();
+        extensions.addAll(0, markdownParser.getExtensions());
+        markdownParser.setExtensions(extensions);
+
+        Path input = new File(args[0]).toPath(), output = new File(args[1]).toPath();
+        int failures = new BatchConverter(markdownParser, targets).convert(input, output, Math.max(1, threads));
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2017  TextMd
+ *
+ * This file is part of TextMd.
+ *
+ * TextMd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.desive.batch;
+
+import com.desive.markdown.MarkdownParser;
+import com.desive.markdown.ParsedDocument;
+import com.desive.utilities.Utils;
+import com.vladsch.flexmark.pdf.converter.PdfConverterExtension;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/*
+ The export types of the editor without the file choosers, every target writes one
+ converted document to the given file. Targets only read the parser so one parsed
+ document can be converted to several targets from different threads.
+*/
+public enum ConversionTarget {
+
+    HTML("html", ".html") {
+        @Override
+        void convert(MarkdownParser markdownParser, ParsedDocument document, File file) throws IOException {
+            try (Writer writer = newWriter(file)) {
+                writer.write(Utils.HTML_DOC_TYPE_START);
+                markdownParser.convertToHTML(document, writer);
+                writer.write(Utils.HTML_DOC_TYPE_END);
+            }
+        }
+    },
+    HTML_CSS("html-css", ".styled.html") {
+        @Override
+        void convert(MarkdownParser markdownParser, ParsedDocument document, File file) throws IOException {
+            try (Writer writer = newWriter(file)) {
+                writer.write(Utils.HTML_DOC_TYPE_START);
+                writer.write("<head><style>");
+                writer.write(Utils.getWebViewCss("#545454"));
+                writer.write("</style></head><body>");
+                markdownParser.convertToHTML(document, writer);
+                writer.write("</body>");
+                writer.write(Utils.HTML_DOC_TYPE_END);
+            }
+        }
+    },
+    PDF("pdf", ".pdf") {
+        @Override
+        void convert(MarkdownParser markdownParser, ParsedDocument document, File file) {
+            PdfConverterExtension.exportToPdf(
+                    file.getAbsolutePath(),
+                    Utils.wrapWithHtmlDocType(markdownParser.convertToHTML(document)),
+                    "",
+                    document.getConfiguration().getOptions()
+            );
+        }
+    },
+    DOCX("docx", ".docx") {
+        @Override
+        void convert(MarkdownParser markdownParser, ParsedDocument document, File file) throws Exception {
+            markdownParser.convertToDocx(document, file);
+        }
+    },
+    JIRA("jira", ".jira.txt") {
+        @Override
+        void convert(MarkdownParser markdownParser, ParsedDocument document, File file) throws IOException {
+            try (Writer writer = newWriter(file)) {
+                markdownParser.convertToJira(document.getDocument().getChars().toString(), writer);
+            }
+        }
+    },
+    YOUTRACK("youtrack", ".youtrack.txt") {
+        @Override
+        void convert(MarkdownParser markdownParser, ParsedDocument document, File file) throws IOException {
+            try (Writer writer = newWriter(file)) {
+                markdownParser.convertToYoutrack(document.getDocument().getChars().toString(), writer);
+            }
+        }
+    },
+    CONFLUENCE("confluence", ".confluence.txt") {
+        @Override
+        void convert(MarkdownParser markdownParser, ParsedDocument document, File file) throws IOException {
+            try (Writer writer = newWriter(file)) {
+                writer.write(markdownParser.markdownToConfluenceMarkup(document));
+            }
+        }
+    },
+    TEXT("text", ".txt") {
+        @Override
+        void convert(MarkdownParser markdownParser, ParsedDocument document, File file) throws IOException {
+            try (Writer writer = newWriter(file)) {
+                markdownParser.convertToText(document, writer);
+            }
+        }
+    };
+
+    private final String targetName, fileExtension;
+
+    ConversionTarget(String name, String fileExtension) {
+        this.targetName = name;
+        this.fileExtension = fileExtension;
+    }
+
+    public String getName() {
+        return targetName;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    abstract void convert(MarkdownParser markdownParser, ParsedDocument document, File file) throws Exception;
+
+    private static Writer newWriter(File file) throws IOException {
+        return Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+    }
+
+    public static ConversionTarget fromName(String name) {
+        return Arrays.stream(values())
+                .filter(target -> target.targetName.equalsIgnoreCase(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown conversion target '" + name + "'"));
+    }
+
+}
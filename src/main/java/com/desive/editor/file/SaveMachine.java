@@ -20,7 +20,10 @@
 package com.desive.editor.file;
 
 import com.desive.markdown.MarkdownParser;
+import com.desive.markdown.ParsedDocument;
 import com.desive.nodes.editor.toolbars.EditorToolBar;
+import com.desive.utilities.TextEncoding;
+import com.desive.utilities.TextFiles;
 import com.desive.utilities.Utils;
 import com.desive.utilities.constants.FileExtensionFilters;
 import com.desive.utilities.constants.Timer;
@@ -31,9 +34,8 @@ import org.docx4j.openpackaging.exceptions.Docx4JException;
 
 import javax.xml.bind.JAXBException;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.Writer;
 
 /*
  Created by Jack DeSive on 11/19/2017 at 12:02 AM
@@ -50,6 +52,10 @@ public abstract class SaveMachine {
     }
 
     protected boolean saveFile(File contentFile, FileChooser.ExtensionFilter ext, String content, String actionText) throws IOException {
+        return saveFile(contentFile, ext, writer -> writer.write(content), actionText);
+    }
+
+    protected boolean saveFile(File contentFile, FileChooser.ExtensionFilter ext, ContentWriter content, String actionText) throws IOException {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setInitialDirectory(contentFile.getParentFile());
         fileChooser.setInitialFileName(contentFile.getName().split("\\.")[0] + ext.getExtensions().stream().findFirst().get().replace("*", ""));
@@ -57,16 +63,33 @@ public abstract class SaveMachine {
         File file = fileChooser.showSaveDialog(primaryStage);
         if(file != null){
             timer.start();
-            PrintWriter writer = new PrintWriter(new FileWriter(file));
-            writer.print(content);
-            writer.close();
+            writeFile(file, content);
             toolbar.setActionText(actionText + " in " + timer.end() + "ms");
             return true;
         }
         return false;
     }
 
-    protected boolean saveDocxFile(File contentFile, String content, String actionText, MarkdownParser markdownParser) throws JAXBException, Docx4JException {
+    // Writes straight into a buffered UTF-8 writer so the output never has to exist as one String
+    protected static void writeFile(File file, ContentWriter content) throws IOException {
+        writeFile(file, TextEncoding.UTF_8, content);
+    }
+
+    protected static void writeFile(File file, TextEncoding encoding, ContentWriter content) throws IOException {
+        try (Writer writer = TextFiles.newWriter(file, encoding)) {
+            content.write(writer);
+        }
+    }
+
+    protected static ContentWriter withHtmlDocType(ContentWriter content) {
+        return writer -> {
+            writer.write(Utils.HTML_DOC_TYPE_START);
+            content.write(writer);
+            writer.write(Utils.HTML_DOC_TYPE_END);
+        };
+    }
+
+    protected boolean saveDocxFile(File contentFile, ParsedDocument document, String actionText, MarkdownParser markdownParser) throws JAXBException, Docx4JException {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setInitialDirectory(contentFile.getParentFile());
         fileChooser.setInitialFileName(contentFile.getName().split("\\.")[0] + ".docx");
@@ -74,7 +97,7 @@ public abstract class SaveMachine {
         File file = fileChooser.showSaveDialog(primaryStage);
         if(file != null){
             timer.start();
-            markdownParser.convertToDocx(content, file);
+            markdownParser.convertToDocx(document, file);
             toolbar.setActionText(actionText + " in " + timer.end() + "ms");
             return true;
         }
@@ -89,9 +112,10 @@ public abstract class SaveMachine {
         File file = fileChooser.showSaveDialog(primaryStage);
         if(file != null){
             timer.start();
+            // The content is already rendered html, no need to run it through the markdown parser again
             PdfConverterExtension.exportToPdf(
                     file.getAbsolutePath(),
-                    markdownParser.convertToHTML(Utils.wrapWithHtmlDocType(content)),
+                    Utils.wrapWithHtmlDocType(content),
                     "",
                     markdownParser.getOptions()
             );
@@ -101,4 +125,9 @@ public abstract class SaveMachine {
         return false;
     }
 
+    @FunctionalInterface
+    protected interface ContentWriter {
+        void write(Writer writer) throws IOException;
+    }
+
 }
@@ -20,14 +20,13 @@
 package com.desive.editor.file;
 
 import com.desive.nodes.editor.toolbars.EditorToolBar;
+import com.desive.utilities.TextEncoding;
 import com.desive.utilities.constants.FileExtensionFilters;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /*
@@ -39,21 +38,19 @@ public class SaveMarkdown extends SaveMachine{
         super(primaryStage, toolbar);
     }
 
-    public boolean save(File file, String content, AtomicBoolean saved) throws IOException {
+    public boolean save(File file, String content, TextEncoding encoding, AtomicBoolean saved) throws IOException {
         if(file.exists()){
             timer.start();
-            PrintWriter writer = new PrintWriter(new FileWriter(file));
-            writer.print(content);
-            writer.close();
+            writeFile(file, encoding, writer -> writer.write(content));
             toolbar.setActionText("Successfully saved file \'" + file.getName() + "\' in " + timer.end() + "ms");
             saved.set(true);
             return true;
         }else{
-            return saveAs(file, content, saved);
+            return saveAs(file, content, encoding, saved);
         }
     }
 
-    public boolean saveAs(File contentFile, String content, AtomicBoolean saved) throws IOException {
+    public boolean saveAs(File contentFile, String content, TextEncoding encoding, AtomicBoolean saved) throws IOException {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setInitialDirectory(contentFile.getParentFile());
         fileChooser.setInitialFileName(contentFile.getName());
@@ -62,7 +59,7 @@ public class SaveMarkdown extends SaveMachine{
         if(file != null){
             contentFile = file;
             contentFile.createNewFile();
-            save(contentFile, content, saved);
+            save(contentFile, content, encoding, saved);
             return true;
         }
         return false;
@@ -21,6 +21,7 @@ package com.desive.editor.file.export;
 
 import com.desive.editor.file.SaveMachine;
 import com.desive.markdown.MarkdownParser;
+import com.desive.markdown.ParsedDocument;
 import com.desive.nodes.editor.toolbars.EditorToolBar;
 import com.desive.utilities.constants.Dictionary;
 import com.desive.utilities.constants.FileExtensionFilters;
@@ -38,11 +39,11 @@ public class ExportToConfluence extends SaveMachine{
         super(primaryStage, toolbar);
     }
 
-    public boolean save(File file, MarkdownParser markdownParser, String content, Dictionary dictionary) throws IOException {
+    public boolean save(File file, MarkdownParser markdownParser, ParsedDocument document, Dictionary dictionary) throws IOException {
         return super.saveFile(
                 file,
                 FileExtensionFilters.TEXT,
-                markdownParser.markdownToConfluenceMarkup(content),
+                markdownParser.markdownToConfluenceMarkup(document),
                 dictionary.DIALOG_EXPORT_SUCCESS_CONFLUENCE_CONTENT
         );
     }
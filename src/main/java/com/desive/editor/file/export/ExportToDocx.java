@@ -21,6 +21,7 @@ package com.desive.editor.file.export;
 
 import com.desive.editor.file.SaveMachine;
 import com.desive.markdown.MarkdownParser;
+import com.desive.markdown.ParsedDocument;
 import com.desive.nodes.editor.toolbars.EditorToolBar;
 import com.desive.utilities.constants.Dictionary;
 import javafx.stage.Stage;
@@ -38,9 +39,9 @@ public class ExportToDocx extends SaveMachine{
         super(primaryStage, toolbar);
     }
 
-    public boolean saveDocx(String text, File contentFile, MarkdownParser markdownParser, Dictionary dictionary) throws Docx4JException, JAXBException {
+    public boolean saveDocx(ParsedDocument document, File contentFile, MarkdownParser markdownParser, Dictionary dictionary) throws Docx4JException, JAXBException {
         return super.saveDocxFile(contentFile,
-                text,
+                document,
                 dictionary.DIALOG_EXPORT_SUCCESS_DOCX_CONTENT,
                 markdownParser);
     }
@@ -20,8 +20,9 @@
 package com.desive.editor.file.export;
 
 import com.desive.editor.file.SaveMachine;
+import com.desive.markdown.MarkdownParser;
+import com.desive.markdown.ParsedDocument;
 import com.desive.nodes.editor.toolbars.EditorToolBar;
-import com.desive.utilities.Utils;
 import com.desive.utilities.constants.Dictionary;
 import com.desive.utilities.constants.FileExtensionFilters;
 import javafx.stage.Stage;
@@ -42,8 +43,17 @@ public class ExportToHtml extends SaveMachine{
         return super.saveFile(
                 file,
                 FileExtensionFilters.HTML,
-                Utils.wrapWithHtmlDocType(content),
+                withHtmlDocType(writer -> writer.write(content)),
                 style ? dictionary.DIALOG_EXPORT_SUCCESS_HTML_CSS_CONTENT : dictionary.DIALOG_EXPORT_SUCCESS_HTML_CONTENT
         );
     }
+
+    public boolean save(File file, MarkdownParser markdownParser, ParsedDocument document, Dictionary dictionary) throws IOException {
+        return super.saveFile(
+                file,
+                FileExtensionFilters.HTML,
+                withHtmlDocType(writer -> markdownParser.convertToHTML(document, writer)),
+                dictionary.DIALOG_EXPORT_SUCCESS_HTML_CONTENT
+        );
+    }
 }
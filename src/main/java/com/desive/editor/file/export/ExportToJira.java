@@ -42,7 +42,7 @@ public class ExportToJira extends SaveMachine{
         return super.saveFile(
                 file,
                 FileExtensionFilters.TEXT,
-                markdownParser.convertToJira(content),
+                writer -> markdownParser.convertToJira(content, writer),
                 dictionary.DIALOG_EXPORT_SUCCESS_JIRA_CONTENT
         );
     }
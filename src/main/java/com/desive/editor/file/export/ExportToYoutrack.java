@@ -42,7 +42,7 @@ public class ExportToYoutrack extends SaveMachine{
         return super.saveFile(
                 file,
                 FileExtensionFilters.TEXT,
-                markdownParser.convertToYoutrack(content),
+                writer -> markdownParser.convertToYoutrack(content, writer),
                 dictionary.DIALOG_EXPORT_SUCCESS_YOUTRACK_CONTENT
         );
     }
@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2017  TextMd
+ *
+ * This file is part of TextMd.
+ *
+ * TextMd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.desive.markdown;
+
+import com.atlassian.renderer.wysiwyg.converter.DefaultWysiwygConverter;
+
+/*
+ Holds the Atlassian renderer so it is only loaded by the first confluence export. The
+ converter is not thread safe and slow to create, every thread keeps its own.
+*/
+class ConfluenceConverter {
+
+    private static final ThreadLocal<DefaultWysiwygConverter> converter = ThreadLocal.withInitial(DefaultWysiwygConverter::new);
+
+    static String convert(String html) {
+        return converter.get().convertXHtmlToWikiMarkup(html);
+    }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2017  TextMd
+ *
+ * This file is part of TextMd.
+ *
+ * TextMd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.desive.markdown;
+
+import com.desive.utilities.Utils;
+import org.docx4j.convert.in.xhtml.XHTMLImporterImpl;
+import org.docx4j.openpackaging.exceptions.Docx4JException;
+import org.docx4j.openpackaging.packages.WordprocessingMLPackage;
+import org.docx4j.openpackaging.parts.WordprocessingML.NumberingDefinitionsPart;
+
+import javax.xml.bind.JAXBException;
+import java.io.File;
+
+/*
+ Holds everything that touches docx4j so its classes, and the JAXB context they set up,
+ are only loaded by the first docx export instead of with the parser at start up.
+*/
+class DocxConverter {
+
+    static void convert(String html, File file) throws Docx4JException, JAXBException {
+        WordprocessingMLPackage wordMLPackage;
+        wordMLPackage = WordprocessingMLPackage.createPackage();
+        NumberingDefinitionsPart ndp = new NumberingDefinitionsPart();
+        wordMLPackage.getMainDocumentPart().addTargetPart(ndp);
+        ndp.unmarshalDefaultNumbering();
+        XHTMLImporterImpl xHTMLImporter = new XHTMLImporterImpl(wordMLPackage);
+        xHTMLImporter.setHyperlinkStyle("Hyperlink");
+        // Must be a properly formatted html doc.. No fragments
+        wordMLPackage.getMainDocumentPart().getContent().addAll(
+                xHTMLImporter.convert(Utils.wrapWithHtmlDocType(html),
+                        null)
+        );
+        wordMLPackage.save(file);
+    }
+
+}
@@ -0,0 +1,397 @@
+/*
+ * Copyright (C) 2017  TextMd
+ *
+ * This file is part of TextMd.
+ *
+ * TextMd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.desive.markdown;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.vladsch.flexmark.ext.toc.TocExtension;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/*
+ Keeps the top-level blocks of one document and their rendered html between renders.
+ Edits reported through textChanged mark the blocks they touch as dirty, render then
+ re-splits and re-parses only those blocks (plus the block in front of them, which an
+ edit can merge into) until the block boundaries line up with the cached blocks again.
+
+ Reference and abbreviation definitions are collected from every block, a block that
+ gets parsed has the definitions of the labels and abbreviations it uses appended so
+ they still resolve across the whole document.
+
+ Edits are queued by the FX thread and applied by whichever thread renders, pass the
+ change count read together with the text so a render only applies the edits its
+ text already contains.
+*/
+public class IncrementalMarkdownParser {
+
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalMarkdownParser.class);
+
+    private static final Pattern DEFINITION_PATTERN = Pattern.compile("^\\*?\\[[^\\]]+]:.*");
+    private static final Pattern LIST_ITEM_PATTERN = Pattern.compile("^([-*+]|\\d{1,9}[.)])(\\s.*)?$");
+
+    private MarkdownParser markdownParser;
+    private ParserConfiguration configuration;
+    private List<Block> blocks = Lists.newArrayList();
+    // The starts of the blocks from index shiftFrom on do not include the shift of the queued edits yet
+    private int shiftFrom = 0, shift = 0;
+    private List<String> definitions = Collections.emptyList();
+    private Map<String, List<String>> references = Collections.emptyMap();
+    private List<String> abbreviations = Collections.emptyList();
+    private int reparsedBlocks = 0;
+
+    private final Deque<int[]> changes = new ArrayDeque<>();
+    private long changeCount = 0, appliedChanges = 0;
+
+    public IncrementalMarkdownParser(MarkdownParser markdownParser) {
+        this.markdownParser = markdownParser;
+    }
+
+    public void textChanged(int position, int removedLength, int insertedLength) {
+        synchronized (changes) {
+            changes.add(new int[]{position, removedLength, insertedLength});
+            changeCount++;
+        }
+    }
+
+    public long getChangeCount() {
+        synchronized (changes) {
+            return changeCount;
+        }
+    }
+
+    private void applyChanges(long upTo) {
+        while(appliedChanges < upTo) {
+            int[] change;
+            synchronized (changes) {
+                change = changes.poll();
+            }
+            if(change == null)
+                return;
+            applyChange(change[0], change[1], change[2]);
+            appliedChanges++;
+        }
+    }
+
+    // Marks the blocks touching the edit as dirty, the blocks after them only move
+    private void applyChange(int position, int removedLength, int insertedLength) {
+        int removedEnd = position + removedLength;
+        int low = 0, high = blocks.size();
+        while(low < high) {
+            int middle = (low + high) >>> 1;
+            if(startOf(middle) + blocks.get(middle).text.length() < position) {
+                low = middle + 1;
+            }else{
+                high = middle;
+            }
+        }
+        int next = low;
+        for(; next < blocks.size() && startOf(next) <= removedEnd; next++)
+            blocks.get(next).dirty = true;
+        moveShift(next);
+        shift += insertedLength - removedLength;
+    }
+
+    private int startOf(int index) {
+        return blocks.get(index).start + (index >= shiftFrom ? shift : 0);
+    }
+
+    // Applies the shift to the blocks between the old and the new shiftFrom only
+    private void moveShift(int index) {
+        if(shift == 0) {
+            shiftFrom = index;
+            return;
+        }
+        for(; shiftFrom < index; shiftFrom++)
+            blocks.get(shiftFrom).start += shift;
+        for(; shiftFrom > index; shiftFrom--)
+            blocks.get(shiftFrom - 1).start -= shift;
+    }
+
+    // Drops the cached blocks along with the edits the text of changeCount already contains,
+    // renders that skip the incremental parser must still call this or the edits pile up
+    public synchronized void reset(long changeCount) {
+        reset();
+        applyChanges(changeCount);
+    }
+
+    private void reset() {
+        blocks.clear();
+        shiftFrom = shift = 0;
+        definitions = Collections.emptyList();
+        references = Collections.emptyMap();
+        abbreviations = Collections.emptyList();
+    }
+
+    public synchronized int getReparsedBlocks() {
+        return reparsedBlocks;
+    }
+
+    public String convertToHTML(String markdown) {
+        return String.join("", convertToHTMLBlocks(markdown, getChangeCount()));
+    }
+
+    public String convertToHTML(String markdown, long changeCount) {
+        return String.join("", convertToHTMLBlocks(markdown, changeCount));
+    }
+
+    // Returns the rendered html of each top-level block, unchanged blocks return the same String instance
+    public synchronized List<String> convertToHTMLBlocks(String markdown, long changeCount) {
+        applyChanges(changeCount);
+        ParserConfiguration current = markdownParser.getConfiguration();
+
+        // The table of contents needs every heading in the document, so fall back to a full parse
+        if(current.hasExtension(TocExtension.class)) {
+            reset();
+            return Collections.singletonList(markdownParser.convertToHTML(markdown, current));
+        }
+
+        if(configuration == null || current.getVersion() != configuration.getVersion()) {
+            configuration = current;
+            reset();
+        }
+
+        // Clean blocks already sit where the queued edits moved them, dirty ones and the block in front of them are split again
+        moveShift(blocks.size());
+        shiftFrom = shift = 0;
+        List<Block> updated = Lists.newArrayListWithCapacity(blocks.size() + 1);
+        boolean definitionsChanged = false;
+        int oldIndex = 0, position = 0;
+        while(position < markdown.length()) {
+            while(oldIndex < blocks.size() && blocks.get(oldIndex).start < position) {
+                definitionsChanged |= !blocks.get(oldIndex).definitions.isEmpty();
+                oldIndex++;
+            }
+
+            Block old = oldIndex < blocks.size() ? blocks.get(oldIndex) : null;
+            boolean nextDirty = oldIndex + 1 < blocks.size() && blocks.get(oldIndex + 1).dirty;
+            if(old != null && old.start == position && !old.dirty && !nextDirty
+                    && position + old.text.length() <= markdown.length()) {
+                updated.add(old);
+                position += old.text.length();
+                oldIndex++;
+            }else{
+                Block block = split(markdown, position);
+                definitionsChanged |= !block.definitions.isEmpty();
+                updated.add(block);
+                position += block.text.length();
+            }
+        }
+        for(; oldIndex < blocks.size(); oldIndex++)
+            definitionsChanged |= !blocks.get(oldIndex).definitions.isEmpty();
+        blocks = updated;
+
+        if(definitionsChanged)
+            collectDefinitions();
+
+        reparsedBlocks = 0;
+        List<String> html = Lists.newArrayListWithCapacity(blocks.size());
+        for(Block block : blocks) {
+            if(block.html == null) {
+                block.appended = getDefinitions(block);
+                String source = block.appended.isEmpty() ? block.text : block.text + "\n\n" + block.appended;
+                block.html = markdownParser.convertToHTML(source, configuration);
+                reparsedBlocks++;
+            }
+            html.add(block.html);
+        }
+        logger.debug("Re-parsed {} of {} blocks", reparsedBlocks, blocks.size());
+        return html;
+    }
+
+    // Rebuilds the definitions of the document, blocks whose appended definitions changed are parsed again
+    private void collectDefinitions() {
+        List<String> collected = Lists.newArrayList();
+        blocks.forEach(block -> collected.addAll(block.definitions));
+        if(collected.equals(definitions))
+            return;
+
+        definitions = collected;
+        references = Maps.newHashMap();
+        abbreviations = Lists.newArrayList();
+        for(String definition : definitions) {
+            if(definition.startsWith("*")) {
+                abbreviations.add(definition);
+            }else{
+                references.computeIfAbsent(getLabel(definition), label -> Lists.newArrayList()).add(definition);
+            }
+        }
+        for(Block block : blocks) {
+            if(block.html != null && !block.appended.equals(getDefinitions(block)))
+                block.html = null;
+        }
+    }
+
+    // The definitions of the labels and abbreviations the block uses, one per line
+    private String getDefinitions(Block block) {
+        if(block.openFence || definitions.isEmpty())
+            return "";
+        StringBuilder builder = new StringBuilder();
+        for(String label : block.labels) {
+            List<String> matching = references.get(label);
+            if(matching != null)
+                matching.forEach(definition -> builder.append(definition).append('\n'));
+        }
+        for(String abbreviation : abbreviations) {
+            if(block.text.contains(getLabel(abbreviation)))
+                builder.append(abbreviation).append('\n');
+        }
+        return builder.toString();
+    }
+
+    // What is between the brackets of a definition, lower cased like reference labels are matched
+    private static String getLabel(String definition) {
+        String label = definition.substring(definition.indexOf('[') + 1, definition.indexOf(']'));
+        return definition.startsWith("*") ? label : normalizeLabel(label);
+    }
+
+    private static String normalizeLabel(String label) {
+        return label.trim().replaceAll("\\s+", " ").toLowerCase();
+    }
+
+    // Everything written in brackets, a link or image refers to one of them if it refers to any definition
+    private static Set<String> findLabels(String text) {
+        Set<String> labels = Sets.newHashSet();
+        int open = text.indexOf('[');
+        while(open != -1) {
+            int close = text.indexOf(']', open + 1), nested = text.indexOf('[', open + 1);
+            if(close == -1)
+                break;
+            if(nested != -1 && nested < close) {
+                open = nested;
+                continue;
+            }
+            labels.add(normalizeLabel(text.substring(open + 1, close)));
+            open = nested == -1 ? -1 : text.indexOf('[', close + 1);
+        }
+        return labels;
+    }
+
+    private Block split(String markdown, int start) {
+        Block block = new Block(start);
+        boolean previousBlank = false, contentSeen = false, list = false;
+        // A definition cannot interrupt a paragraph, a full parse reads it as text there
+        boolean definitionAllowed = true;
+        String fence = null, htmlEnd = null;
+
+        int lineStart = start;
+        while(lineStart < markdown.length()) {
+            int lineEnd = markdown.indexOf('\n', lineStart);
+            lineEnd = lineEnd == -1 ? markdown.length() : lineEnd + 1;
+            String line = markdown.substring(lineStart, lineEnd);
+            String trimmed = line.trim();
+            boolean blank = trimmed.isEmpty();
+
+            // Only split where a full parse would also start a new top-level block
+            if(previousBlank && contentSeen && !blank && fence == null && htmlEnd == null
+                    && !Character.isWhitespace(line.charAt(0))
+                    && !(list && LIST_ITEM_PATTERN.matcher(trimmed).matches())) {
+                break;
+            }
+
+            if(!blank && !contentSeen) {
+                contentSeen = true;
+                list = LIST_ITEM_PATTERN.matcher(trimmed).matches();
+            }
+
+            String stripped = stripIndent(line);
+            if(fence != null) {
+                if(stripped.startsWith(fence) && stripped.replace(fence.charAt(0), ' ').trim().isEmpty())
+                    fence = null;
+                definitionAllowed = fence == null;
+            }else if(htmlEnd != null) {
+                if(line.contains(htmlEnd))
+                    htmlEnd = null;
+                definitionAllowed = htmlEnd == null;
+            }else if(stripped.startsWith("```") || stripped.startsWith("~~~")) {
+                fence = stripped.substring(0, countRepeat(stripped, stripped.charAt(0)));
+                definitionAllowed = false;
+            }else if((htmlEnd = getHtmlBlockEnd(stripped)) != null) {
+                if(line.indexOf(htmlEnd, 1) != -1)
+                    htmlEnd = null;
+                definitionAllowed = htmlEnd == null;
+            }else if(blank || stripped.startsWith("#")) {
+                definitionAllowed = true;
+            }else if(definitionAllowed && !Character.isWhitespace(stripped.charAt(0)) && DEFINITION_PATTERN.matcher(trimmed).matches()) {
+                block.definitions.add(trimmed);
+            }else{
+                definitionAllowed = false;
+            }
+
+            previousBlank = blank;
+            lineStart = lineEnd;
+        }
+
+        block.text = markdown.substring(start, lineStart);
+        block.openFence = fence != null || htmlEnd != null;
+        block.labels = findLabels(block.text);
+        return block;
+    }
+
+    // Html blocks that may contain blank lines, see the CommonMark html block start conditions 1 and 2
+    private String getHtmlBlockEnd(String line) {
+        String lower = line.toLowerCase();
+        if(lower.startsWith("<!--"))
+            return "-->";
+        for(String tag : new String[]{"pre", "script", "style", "textarea"}) {
+            if(lower.startsWith("<" + tag))
+                return "</" + tag + ">";
+        }
+        return null;
+    }
+
+    private String stripIndent(String line) {
+        int spaces = 0;
+        while(spaces < 3 && spaces < line.length() && line.charAt(spaces) == ' ')
+            spaces++;
+        return line.substring(spaces);
+    }
+
+    private int countRepeat(String text, char c) {
+        int count = 0;
+        while(count < text.length() && text.charAt(count) == c)
+            count++;
+        return count;
+    }
+
+    static class Block {
+
+        int start;
+        String text = "";
+        String html, appended = "";
+        boolean dirty, openFence;
+        List<String> definitions = Lists.newArrayList();
+        Set<String> labels = Collections.emptySet();
+
+        Block(int start) {
+            this.start = start;
+        }
+
+    }
+
+}
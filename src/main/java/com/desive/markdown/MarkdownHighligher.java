@@ -19,10 +19,8 @@
 
 package com.desive.markdown;
 
-import com.desive.nodes.editor.EditorPane;
 import com.google.common.collect.Lists;
 import org.fxmisc.richtext.CodeArea;
-import org.languagetool.rules.RuleMatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,6 +32,7 @@ import java.util.regex.Pattern;
 /*
  Created by Jack DeSive on 10/9/2017 at 6:52 PM
 */
+// The regex highlighter the editor used before MarkdownLexer, only kept as the baseline of HighlighterBenchmark
 public class MarkdownHighligher {
 
     private static final Logger logger = LoggerFactory.getLogger(MarkdownHighligher.class);
@@ -104,10 +103,6 @@ public class MarkdownHighligher {
         }
     }
 
-    public static void computeSpellcheckHighlighting(List<RuleMatch> matches, EditorPane parent) {
-
-    }
-
     static class StyleIndex {
         int start;
         int end;
@@ -19,10 +19,10 @@
 
 package com.desive.markdown;
 
-import com.atlassian.renderer.wysiwyg.converter.DefaultWysiwygConverter;
-import com.desive.utilities.Utils;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.vladsch.flexmark.Extension;
+import com.vladsch.flexmark.ast.Node;
 import com.vladsch.flexmark.ast.util.TextCollectingVisitor;
 import com.vladsch.flexmark.ext.abbreviation.AbbreviationExtension;
 import com.vladsch.flexmark.ext.anchorlink.AnchorLinkExtension;
@@ -34,23 +34,22 @@ import com.vladsch.flexmark.html.HtmlRenderer;
 import com.vladsch.flexmark.jira.converter.JiraConverterExtension;
 import com.vladsch.flexmark.parser.Parser;
 import com.vladsch.flexmark.util.KeepType;
-import com.vladsch.flexmark.util.options.DataKey;
-import com.vladsch.flexmark.util.options.MutableDataHolder;
+import com.vladsch.flexmark.util.options.DataHolder;
+import com.vladsch.flexmark.util.options.DataSet;
 import com.vladsch.flexmark.util.options.MutableDataSet;
 import com.vladsch.flexmark.youtrack.converter.YouTrackConverterExtension;
-import org.docx4j.convert.in.xhtml.XHTMLImporterImpl;
 import org.docx4j.openpackaging.exceptions.Docx4JException;
-import org.docx4j.openpackaging.packages.WordprocessingMLPackage;
-import org.docx4j.openpackaging.parts.WordprocessingML.NumberingDefinitionsPart;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.xml.bind.JAXBException;
 import java.io.File;
-import java.util.Arrays;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
 /*
  Created by Jack DeSive on 10/7/2017 at 9:30 PM
@@ -59,9 +58,8 @@ public class MarkdownParser {
 
     private final Logger logger = LoggerFactory.getLogger(MarkdownParser.class);
 
-    private DataKey<Iterable<Extension>> EXTENSIONS = Parser.EXTENSIONS;
-
-    public final MutableDataHolder options = new MutableDataSet()
+    // Never mutated, every configuration snapshot starts from a copy of these
+    private final DataHolder defaultOptions = new MutableDataSet()
             .set(Parser.REFERENCES_KEEP, KeepType.LAST)
             .set(Parser.PARSE_INNER_HTML_COMMENTS, true)
             .set(Parser.INDENTED_CODE_NO_TRAILING_BLANK_LINES, false)
@@ -104,93 +102,142 @@ public class MarkdownParser {
             .set(TablesExtension.MAX_HEADER_ROWS, 1)
             .set(TablesExtension.APPEND_MISSING_COLUMNS, true)
             .set(TablesExtension.DISCARD_EXTRA_COLUMNS, true)
-            .set(TablesExtension.HEADER_SEPARATOR_COLUMN_MATCH, true)
+            .set(TablesExtension.HEADER_SEPARATOR_COLUMN_MATCH, true);
 
-            .set(EXTENSIONS, Lists.newArrayList(Arrays.asList(
-                    EscapedCharacterExtension.create()
-            )));
+    private final Parser jiraParser = Parser.builder(new MutableDataSet()
+            .set(Parser.EXTENSIONS, Collections.singletonList(JiraConverterExtension.create()))).build();
 
-    private MutableDataHolder jiraOptions = new MutableDataSet()
-            .set(Parser.EXTENSIONS, Collections.singletonList(JiraConverterExtension.create()));
+    private final Parser youtrackParser = Parser.builder(new MutableDataSet()
+            .set(Parser.EXTENSIONS, Collections.singletonList(YouTrackConverterExtension.create()))).build();
 
-    private MutableDataHolder youtrackOptions = new MutableDataSet()
-            .set(Parser.EXTENSIONS, Collections.singletonList(YouTrackConverterExtension.create()));
+    // Parser and renderer builds are expensive, keep one configuration per extension set
+    private final Map<List<String>, ParserConfiguration> configurationCache = Maps.newConcurrentMap();
+    private final AtomicReference<ParserConfiguration> configuration = new AtomicReference<>(
+            buildConfiguration(0, Collections.singletonList(EscapedCharacterExtension.create()))
+    );
 
-    private Parser markdownParser = Parser.builder(options).build();
-    private HtmlRenderer htmlRenderer = HtmlRenderer.builder(options).build();
-    private DefaultWysiwygConverter confluenceConverter = new DefaultWysiwygConverter();
+    public ParserConfiguration getConfiguration() {
+        return configuration.get();
+    }
 
     public void setExtensions(List<Extension> extensions) {
-        options.remove(EXTENSIONS);
-        options.set(EXTENSIONS, extensions);
-        logger.debug("Resetting markdown parser extensions: {}", options.get(Parser.EXTENSIONS).toString());
+        ParserConfiguration updated = configuration.updateAndGet(current -> buildConfiguration(current.getVersion() + 1, extensions));
+        logger.debug("Resetting markdown parser extensions: {}", updated.getExtensions().toString());
     }
 
     public List<Extension> getExtensions() {
-        return (List<Extension>) options.get(Parser.EXTENSIONS);
+        return getConfiguration().getExtensions();
     }
 
-    public MutableDataHolder getOptions() {
-        return options;
+    public DataHolder getOptions() {
+        return getConfiguration().getOptions();
     }
 
     public void addExtension(Extension extension) {
-        List<Extension> extensions = getExtensions();
-        if(!containsExtension(extension)) {
-            Collections.addAll(extensions, extension);
-            setExtensions(extensions);
-        }
-    }
-
-    private boolean containsExtension(final Extension extension) {
-        final AtomicBoolean flag = new AtomicBoolean(false);
-        getExtensions().forEach(ext -> {
-            if(ext.getClass().getName().equals(extension.getClass().getName())){
-                flag.set(true);
-            }
+        configuration.updateAndGet(current -> {
+            if(containsExtension(current.getExtensions(), extension))
+                return current;
+            List<Extension> extensions = Lists.newArrayList(current.getExtensions());
+            extensions.add(extension);
+            return buildConfiguration(current.getVersion() + 1, extensions);
+        });
+    }
+
+    public void removeExtension(Extension extension) {
+        configuration.updateAndGet(current -> {
+            if(!containsExtension(current.getExtensions(), extension))
+                return current;
+            List<Extension> extensions = current.getExtensions().stream()
+                    .filter(ext -> !ext.getClass().getName().equals(extension.getClass().getName()))
+                    .collect(Collectors.toList());
+            return buildConfiguration(current.getVersion() + 1, extensions);
         });
-        return flag.get();
+    }
+
+    private boolean containsExtension(final List<Extension> extensions, final Extension extension) {
+        return extensions.stream().anyMatch(ext -> ext.getClass().getName().equals(extension.getClass().getName()));
+    }
+
+    private ParserConfiguration buildConfiguration(long version, List<Extension> extensions) {
+        List<Extension> snapshot = Collections.unmodifiableList(Lists.newArrayList(extensions));
+        ParserConfiguration cached = configurationCache.computeIfAbsent(ParserConfiguration.getExtensionKey(snapshot), key -> {
+            logger.debug("Building markdown parser for extensions: {}", key);
+            DataSet options = new DataSet(new MutableDataSet(defaultOptions).set(Parser.EXTENSIONS, snapshot));
+            return new ParserConfiguration(version, snapshot, options, Parser.builder(options).build(), HtmlRenderer.builder(options).build());
+        });
+        return new ParserConfiguration(version, snapshot, cached.getOptions(), cached.getParser(), cached.getRenderer());
+    }
+
+    public ParsedDocument parse(String markdown) {
+        return parse(markdown, getConfiguration(), -1);
+    }
+
+    public ParsedDocument parse(String markdown, ParserConfiguration configuration, long version) {
+        return new ParsedDocument(version, configuration, configuration.getParser().parse(markdown));
     }
 
     public String convertToHTML(String markdown){
-        markdownParser = Parser.builder(options).build();
-        htmlRenderer = HtmlRenderer.builder(options).build();
-        return htmlRenderer.render(markdownParser.parse(markdown));
+        return convertToHTML(parse(markdown));
+    }
+
+    public String convertToHTML(String markdown, ParserConfiguration configuration){
+        return configuration.getRenderer().render(configuration.getParser().parse(markdown));
+    }
+
+    public String convertToHTML(ParsedDocument document){
+        return document.getConfiguration().getRenderer().render(document.getDocument());
+    }
+
+    public void convertToHTML(ParsedDocument document, Appendable output){
+        document.getConfiguration().getRenderer().render(document.getDocument(), output);
     }
 
     public void convertToDocx(String markdown, File file) throws Docx4JException, JAXBException {
-        WordprocessingMLPackage wordMLPackage;
-        wordMLPackage = WordprocessingMLPackage.createPackage();
-        NumberingDefinitionsPart ndp = new NumberingDefinitionsPart();
-        wordMLPackage.getMainDocumentPart().addTargetPart(ndp);
-        ndp.unmarshalDefaultNumbering();
-        XHTMLImporterImpl xHTMLImporter = new XHTMLImporterImpl(wordMLPackage);
-        xHTMLImporter.setHyperlinkStyle("Hyperlink");
-        // Must be a properly formatted html doc.. No fragments
-        wordMLPackage.getMainDocumentPart().getContent().addAll(
-                xHTMLImporter.convert(Utils.wrapWithHtmlDocType(convertToHTML(markdown)),
-                        null)
-        );
-        wordMLPackage.save(file);
+        convertToDocx(parse(markdown), file);
+    }
+
+    public void convertToDocx(ParsedDocument document, File file) throws Docx4JException, JAXBException {
+        DocxConverter.convert(convertToHTML(document), file);
     }
 
     public String convertToJira(String markdown){
-        markdownParser = Parser.builder(jiraOptions).build();
-        return htmlRenderer.render(markdownParser.parse(markdown));
+        return getConfiguration().getRenderer().render(jiraParser.parse(markdown));
+    }
+
+    public void convertToJira(String markdown, Appendable output){
+        getConfiguration().getRenderer().render(jiraParser.parse(markdown), output);
     }
 
     public String convertToYoutrack(String markdown){
-        markdownParser = Parser.builder(youtrackOptions).build();
-        return htmlRenderer.render(markdownParser.parse(markdown));
+        return getConfiguration().getRenderer().render(youtrackParser.parse(markdown));
+    }
+
+    public void convertToYoutrack(String markdown, Appendable output){
+        getConfiguration().getRenderer().render(youtrackParser.parse(markdown), output);
     }
 
     public String convertToText(String markdown){
+        return convertToText(parse(markdown));
+    }
+
+    public String convertToText(ParsedDocument document){
+        TextCollectingVisitor textCollectingVisitor = new TextCollectingVisitor();
+        return textCollectingVisitor.collectAndGetText(document.getDocument());
+    }
+
+    // Collects one top level block at a time, the text of the whole document never exists as one String
+    public void convertToText(ParsedDocument document, Appendable output) throws IOException {
         TextCollectingVisitor textCollectingVisitor = new TextCollectingVisitor();
-        return textCollectingVisitor.collectAndGetText(markdownParser.parse(markdown));
+        for(Node block = document.getDocument().getFirstChild(); block != null; block = block.getNext())
+            output.append(textCollectingVisitor.collectAndGetText(block));
     }
 
     public String markdownToConfluenceMarkup(String markdown) {
-        return confluenceConverter.convertXHtmlToWikiMarkup(convertToHTML(markdown));
+        return markdownToConfluenceMarkup(parse(markdown));
+    }
+
+    public String markdownToConfluenceMarkup(ParsedDocument document) {
+        return ConfluenceConverter.convert(convertToHTML(document));
     }
 
 }
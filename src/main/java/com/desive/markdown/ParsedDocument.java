@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2017  TextMd
+ *
+ * This file is part of TextMd.
+ *
+ * TextMd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.desive.markdown;
+
+import com.vladsch.flexmark.ast.Node;
+
+/*
+ A parsed document together with the configuration it was parsed with, so every output
+ format renders it with matching extensions. The version is the document version it was
+ parsed from, -1 when it is not tied to an editor.
+*/
+public final class ParsedDocument {
+
+    private final long version;
+    private final ParserConfiguration configuration;
+    private final Node document;
+
+    ParsedDocument(long version, ParserConfiguration configuration, Node document) {
+        this.version = version;
+        this.configuration = configuration;
+        this.document = document;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public ParserConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    public Node getDocument() {
+        return document;
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2017  TextMd
+ *
+ * This file is part of TextMd.
+ *
+ * TextMd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.desive.markdown;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/*
+ Holds the last parsed version of one document so the preview and the exports share a
+ single parse. Edits bump the version, a cached document is only handed out for the
+ version and parser configuration it was parsed with.
+*/
+public class ParsedDocumentCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParsedDocumentCache.class);
+
+    private final MarkdownParser markdownParser;
+    private long version = 0;
+    private ParsedDocument cached;
+
+    public ParsedDocumentCache(MarkdownParser markdownParser) {
+        this.markdownParser = markdownParser;
+    }
+
+    public synchronized void invalidate() {
+        version++;
+        cached = null;
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    // The markdown has to be the text of the given version
+    public ParsedDocument getDocument(String markdown, long version) {
+        ParserConfiguration configuration = markdownParser.getConfiguration();
+        synchronized (this) {
+            if(cached != null && cached.getVersion() == version
+                    && cached.getConfiguration().getVersion() == configuration.getVersion()) {
+                logger.debug("Reusing parsed document version {}", version);
+                return cached;
+            }
+        }
+
+        // Parse outside of the lock, the FX thread only ever waits on invalidate
+        ParsedDocument parsed = markdownParser.parse(markdown, configuration, version);
+        synchronized (this) {
+            if(version == this.version)
+                cached = parsed;
+        }
+        return parsed;
+    }
+
+}
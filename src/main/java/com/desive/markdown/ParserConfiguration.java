@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2017  TextMd
+ *
+ * This file is part of TextMd.
+ *
+ * TextMd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.desive.markdown;
+
+import com.google.common.collect.ImmutableMap;
+import com.vladsch.flexmark.Extension;
+import com.vladsch.flexmark.ext.abbreviation.AbbreviationExtension;
+import com.vladsch.flexmark.ext.anchorlink.AnchorLinkExtension;
+import com.vladsch.flexmark.ext.autolink.AutolinkExtension;
+import com.vladsch.flexmark.ext.gfm.issues.GfmIssuesExtension;
+import com.vladsch.flexmark.ext.gfm.strikethrough.StrikethroughSubscriptExtension;
+import com.vladsch.flexmark.ext.gfm.tasklist.TaskListExtension;
+import com.vladsch.flexmark.ext.gfm.users.GfmUsersExtension;
+import com.vladsch.flexmark.ext.tables.TablesExtension;
+import com.vladsch.flexmark.ext.toc.TocExtension;
+import com.vladsch.flexmark.ext.wikilink.WikiLinkExtension;
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.superscript.SuperscriptExtension;
+import com.vladsch.flexmark.util.options.DataHolder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/*
+ Immutable snapshot of the parser options and extensions. Never modified after it is
+ built, MarkdownParser swaps in a new snapshot when the extensions change so any
+ thread can keep converting with the snapshot it grabbed.
+*/
+public final class ParserConfiguration {
+
+    // The optional extensions of the View > Extensions menu, by the name used on the command line
+    private static final Map<String, Supplier<Extension>> OPTIONAL_EXTENSIONS = ImmutableMap.<String, Supplier<Extension>>builder()
+            .put("abbreviation", AbbreviationExtension::create)
+            .put("anchorlink", AnchorLinkExtension::create)
+            .put("autolink", AutolinkExtension::create)
+            .put("gfm-issues", GfmIssuesExtension::create)
+            .put("gfm-users", GfmUsersExtension::create)
+            .put("strikethrough", StrikethroughSubscriptExtension::create)
+            .put("superscript", SuperscriptExtension::create)
+            .put("tables", TablesExtension::create)
+            .put("tasklist", TaskListExtension::create)
+            .put("toc", TocExtension::create)
+            .put("wikilink", WikiLinkExtension::create)
+            .build();
+
+    private final long version;
+    private final List<Extension> extensions;
+    private final DataHolder options;
+    private final Parser parser;
+    private final HtmlRenderer renderer;
+
+    ParserConfiguration(long version, List<Extension> extensions, DataHolder options, Parser parser, HtmlRenderer renderer) {
+        this.version = version;
+        this.extensions = extensions;
+        this.options = options;
+        this.parser = parser;
+        this.renderer = renderer;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<Extension> getExtensions() {
+        return extensions;
+    }
+
+    public DataHolder getOptions() {
+        return options;
+    }
+
+    public Parser getParser() {
+        return parser;
+    }
+
+    public HtmlRenderer getRenderer() {
+        return renderer;
+    }
+
+    public boolean hasExtension(Class<? extends Extension> extensionClass) {
+        return extensions.stream().anyMatch(extensionClass::isInstance);
+    }
+
+    public static Set<String> getOptionalExtensionNames() {
+        return OPTIONAL_EXTENSIONS.keySet();
+    }
+
+    public static Extension createOptionalExtension(String name) {
+        Supplier<Extension> extension = OPTIONAL_EXTENSIONS.get(name.toLowerCase());
+        if(extension == null)
+            throw new IllegalArgumentException("Unknown extension '" + name + "'");
+        return extension.get();
+    }
+
+    static List<String> getExtensionKey(List<Extension> extensions) {
+        return extensions.stream()
+                .map(ext -> ext.getClass().getName())
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+}
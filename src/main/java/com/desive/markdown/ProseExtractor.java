@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2017  TextMd
+ *
+ * This file is part of TextMd.
+ *
+ * TextMd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.desive.markdown;
+
+import com.google.common.collect.Lists;
+import com.vladsch.flexmark.ast.*;
+import com.vladsch.flexmark.ext.autolink.AutolinkExtension;
+import com.vladsch.flexmark.ext.gfm.strikethrough.StrikethroughExtension;
+import com.vladsch.flexmark.ext.gfm.tasklist.TaskListExtension;
+import com.vladsch.flexmark.ext.tables.TableCell;
+import com.vladsch.flexmark.ext.tables.TablesExtension;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.options.MutableDataSet;
+
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ Pulls the prose out of a markdown document for the spellchecker. Every paragraph,
+ heading and table cell becomes one block holding only the text of its Text nodes, so
+ markup, code, html, urls and table pipes never reach LanguageTool. Each block keeps
+ the document offset of every run of text to map matches back into the editor.
+*/
+public class ProseExtractor {
+
+    private final Parser parser = Parser.builder(new MutableDataSet()
+            .set(Parser.EXTENSIONS, Arrays.asList(
+                    TablesExtension.create(),
+                    StrikethroughExtension.create(),
+                    TaskListExtension.create(),
+                    AutolinkExtension.create()
+            ))).build();
+
+    public List<ProseBlock> extract(String markdown) {
+        List<ProseBlock> blocks = Lists.newArrayList();
+        collect(parser.parse(markdown), null, blocks);
+        return blocks;
+    }
+
+    private void collect(Node node, ProseBlock block, List<ProseBlock> blocks) {
+        for(Node child = node.getFirstChild(); child != null; child = child.getNext()) {
+            if(isSkipped(child))
+                continue;
+
+            if(child instanceof Paragraph || child instanceof Heading || child instanceof TableCell) {
+                ProseBlock childBlock = new ProseBlock();
+                collect(child, childBlock, blocks);
+                if(!childBlock.getText().isEmpty())
+                    blocks.add(childBlock);
+            }else if(block != null && child instanceof Text) {
+                block.append(child.getStartOffset(), child.getChars());
+            }else if(block != null && (child instanceof SoftLineBreak || child instanceof HardLineBreak)) {
+                block.appendBreak(child.getStartOffset());
+            }else{
+                collect(child, block, blocks);
+            }
+        }
+    }
+
+    // Nodes that never hold prose, their text would only produce false positives
+    private boolean isSkipped(Node node) {
+        return node instanceof Code
+                || node instanceof FencedCodeBlock
+                || node instanceof IndentedCodeBlock
+                || node instanceof HtmlBlockBase
+                || node instanceof HtmlInlineBase
+                || node instanceof HtmlEntity
+                || node instanceof AutoLink
+                || node instanceof MailLink
+                || node instanceof Image
+                || node instanceof ImageRef
+                || node instanceof Reference;
+    }
+
+    public static class ProseBlock {
+
+        private final StringBuilder text = new StringBuilder();
+
+        // Pairs of {offset in the text, offset in the document} where a run of text starts
+        private final List<int[]> runs = Lists.newArrayList();
+
+        void append(int documentOffset, CharSequence chars) {
+            // Skipped nodes between two runs would otherwise leave doubled spaces behind
+            int skip = 0;
+            if(endsWithSpace()) {
+                while(skip < chars.length() && Character.isWhitespace(chars.charAt(skip)))
+                    skip++;
+            }
+            if(skip == chars.length())
+                return;
+            runs.add(new int[]{text.length(), documentOffset + skip});
+            text.append(chars, skip, chars.length());
+        }
+
+        void appendBreak(int documentOffset) {
+            if(endsWithSpace())
+                return;
+            runs.add(new int[]{text.length(), documentOffset});
+            text.append(' ');
+        }
+
+        private boolean endsWithSpace() {
+            return text.length() == 0 || Character.isWhitespace(text.charAt(text.length() - 1));
+        }
+
+        public String getText() {
+            return text.toString();
+        }
+
+        public int toDocumentOffset(int offset) {
+            int low = 0, high = runs.size() - 1;
+            while(low < high) {
+                int middle = (low + high + 1) >>> 1;
+                if(runs.get(middle)[0] <= offset) {
+                    low = middle;
+                }else{
+                    high = middle - 1;
+                }
+            }
+            int[] run = runs.get(low);
+            return run[1] + offset - run[0];
+        }
+
+        // Maps an exclusive end offset, an end right after a run stays at the end of that run
+        public int toDocumentEnd(int offset) {
+            return offset == 0 ? toDocumentOffset(0) : toDocumentOffset(offset - 1) + 1;
+        }
+
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2017  TextMd
+ *
+ * This file is part of TextMd.
+ *
+ * TextMd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.desive.markdown.syntax;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.fxmisc.richtext.model.StyleSpans;
+import org.fxmisc.richtext.model.StyleSpansBuilder;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/*
+ The style layers of one document. Every layer is updated on its own, compose merges
+ all of them for a range of the text in a single pass so the area only ever gets one
+ setStyleSpans call per update and never has to be read back.
+*/
+public class LayeredStyles {
+
+    // Composition order, the style classes of later layers come after the earlier ones
+    public enum Layer {
+        SYNTAX,
+        HEADING_TAGS,
+        SPELLCHECK
+    }
+
+    private static final Collection<String> NO_STYLE = Collections.emptyList();
+
+    private final Map<Layer, StyleLayer> layers = Maps.newEnumMap(Layer.class);
+
+    public LayeredStyles() {
+        for(Layer layer : Layer.values())
+            layers.put(layer, new StyleLayer());
+    }
+
+    public StyleLayer get(Layer layer) {
+        return layers.get(layer);
+    }
+
+    public void textChanged(int position, int removedLength, int insertedLength) {
+        layers.values().forEach(layer -> layer.textChanged(position, removedLength, insertedLength));
+    }
+
+    public StyleSpans<Collection<String>> compose(int from, int to) {
+        StyleSpansBuilder<Collection<String>> builder = new StyleSpansBuilder<>();
+        List<StyleLayer> composed = Lists.newArrayList(layers.values());
+        int[] index = new int[composed.size()];
+        for(int i = 0; i < composed.size(); i++)
+            index[i] = composed.get(i).indexAfter(from);
+
+        int position = from;
+        while(position < to) {
+            int next = to;
+            Collection<String> styles = NO_STYLE;
+            List<String> merged = null;
+            for(int i = 0; i < composed.size(); i++) {
+                StyleLayer layer = composed.get(i);
+                while(index[i] < layer.size() && layer.endOf(index[i]) <= position)
+                    index[i]++;
+                if(index[i] == layer.size())
+                    continue;
+
+                int start = layer.startOf(index[i]);
+                if(start > position) {
+                    next = Math.min(next, start);
+                    continue;
+                }
+                next = Math.min(next, layer.endOf(index[i]));
+                if(styles == NO_STYLE) {
+                    styles = layer.stylesOf(index[i]);
+                }else{
+                    if(merged == null) {
+                        merged = Lists.newArrayList(styles);
+                        styles = merged;
+                    }
+                    merged.addAll(layer.stylesOf(index[i]));
+                }
+            }
+            builder.add(styles, next - position);
+            position = next;
+        }
+
+        if(from >= to)
+            builder.add(NO_STYLE, 0);
+        return builder.create();
+    }
+
+}
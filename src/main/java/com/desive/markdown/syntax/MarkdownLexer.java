@@ -0,0 +1,277 @@
+/*
+ * Copyright (C) 2017  TextMd
+ *
+ * This file is part of TextMd.
+ *
+ * TextMd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.desive.markdown.syntax;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ Splits markdown into highlighting spans in one pass over the text. Block elements
+ (headings, rules and code fences) are recognised per line, inline elements are
+ searched for only within their own line so no rule ever looks past the end of a line
+ except an open code fence, which is carried from line to line.
+
+ Heading markers are emitted as their own spans so they can be layered over the heading
+ style. Style classes are the ones defined in css/editor.css.
+
+ A fence state packs the fence character in the low byte and the length of the opening
+ fence above it, so only a long enough fence of the same character closes it.
+*/
+public class MarkdownLexer {
+
+    public static final char NO_FENCE = '\0';
+
+    private static final Collection<String> HRULE = Collections.singletonList("hrule");
+    private static final Collection<String> BOLD = Collections.singletonList("bold");
+    private static final Collection<String> ITALICS = Collections.singletonList("italics");
+    private static final Collection<String> STRIKETHROUGH = Collections.singletonList("strikethrough");
+    private static final Collection<String> INLINE_CODE = Collections.singletonList("inline-code");
+    private static final Collection<String> IMAGE = Collections.singletonList("image");
+    private static final Collection<String> LINK = Collections.singletonList("link");
+    private static final Collection<String> CODE = Collections.singletonList("code");
+    private static final List<Collection<String>> HEADINGS = Arrays.asList(
+            Collections.singletonList("heading1"), Collections.singletonList("heading2"),
+            Collections.singletonList("heading3"), Collections.singletonList("heading4"),
+            Collections.singletonList("heading5"), Collections.singletonList("heading6")
+    );
+    private static final Collection<String> HEADING_TAG = Collections.singletonList("heading-tag");
+
+    // What the inline rules look for after an opening marker, indexed by the kinds below
+    private static final String[] SEARCHES = {"*", "**", "_", "__", "~~", "`", "](", ")"};
+    private static final int STAR = 0, DOUBLE_STAR = 1, UNDERSCORE = 2, DOUBLE_UNDERSCORE = 3,
+            TILDES = 4, BACKTICK = 5, LINK_MIDDLE = 6, LINK_CLOSE = 7;
+
+    private List<StyleLayer.Span> syntax, tags;
+    private String text;
+    private int offset, limit;
+
+    /*
+     Per search, nothing matches in [searchedFrom, found) of the current line and found is
+     the match or the line end if there is none. Openers are tried left to right, so every
+     later search of the same kind starts inside or after that range and a line full of
+     unmatched markers is still only scanned once per search.
+    */
+    private final int[] searchedFrom = new int[SEARCHES.length], found = new int[SEARCHES.length];
+
+    /*
+     Lexes the whole text into syntax spans and heading tag spans and records the fence
+     that is open at the start of every line (paragraph) of the text.
+    */
+    public void lex(String text, List<Character> lineStates, List<StyleLayer.Span> syntax, List<StyleLayer.Span> tags) {
+        begin(text, 0, text.length(), syntax, tags);
+        lineStates.clear();
+
+        char fence = NO_FENCE;
+        int lineStart = 0;
+        while(lineStart <= text.length()) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            lineEnd = lineEnd == -1 ? text.length() : lineEnd;
+            lineStates.add(fence);
+            fence = lexLine(lineStart, lineEnd, fence);
+            lineStart = lineEnd + 1;
+        }
+        this.text = null;
+    }
+
+    /*
+     Lexes a single paragraph without its line break that starts at the given document
+     offset, returns the fence that is open after it. lineBreak tells if a line break
+     follows the paragraph in the document, a code block styles it too.
+    */
+    public char lexParagraph(String paragraph, int offset, boolean lineBreak, char fence, List<StyleLayer.Span> syntax, List<StyleLayer.Span> tags) {
+        begin(paragraph, offset, lineBreak ? paragraph.length() + 1 : paragraph.length(), syntax, tags);
+        fence = lexLine(0, paragraph.length(), fence);
+        this.text = null;
+        return fence;
+    }
+
+    // Spans may reach up to limit, one past the text when the line break after it belongs to it
+    private void begin(String text, int offset, int limit, List<StyleLayer.Span> syntax, List<StyleLayer.Span> tags) {
+        this.text = text;
+        this.offset = offset;
+        this.limit = limit;
+        this.syntax = syntax;
+        this.tags = tags;
+    }
+
+    // Styles one line (without its line break) and returns the fence that is still open after it
+    private char lexLine(int start, int end, char fence) {
+        int indent = start;
+        while(indent < end && indent - start < 3 && text.charAt(indent) == ' ')
+            indent++;
+
+        // Code blocks keep their line breaks so the background is not cut between lines
+        if(fence != NO_FENCE) {
+            if(isClosingFence(indent, end, fence)) {
+                style(CODE, start, end);
+                return NO_FENCE;
+            }
+            style(CODE, start, Math.min(end + 1, limit));
+            return fence;
+        }
+
+        if(isFence(indent, end, '`') || isFence(indent, end, '~')) {
+            style(CODE, start, Math.min(end + 1, limit));
+            return (char) (Math.min(count(indent, end, text.charAt(indent)), 0xFF) << 8 | text.charAt(indent));
+        }
+
+        if(start < end && text.charAt(start) == '#') {
+            int level = count(start, end, '#');
+            if(level <= 6 && start + level < end && text.charAt(start + level) == ' ') {
+                tags.add(new StyleLayer.Span(offset + start, offset + start + level, HEADING_TAG));
+                style(HEADINGS.get(level - 1), start, end);
+                return NO_FENCE;
+            }
+        }
+
+        if(isRule(indent, end)) {
+            style(HRULE, indent, end);
+            return NO_FENCE;
+        }
+
+        lexInline(start, end);
+        return NO_FENCE;
+    }
+
+    private void lexInline(int start, int end) {
+        Arrays.fill(searchedFrom, Integer.MAX_VALUE);
+        int i = start;
+        while(i < end) {
+            int matchEnd = -1;
+            Collection<String> style = null;
+            switch (text.charAt(i)) {
+                case '*':
+                case '_':
+                    char marker = text.charAt(i);
+                    if(i + 1 < end && text.charAt(i + 1) == marker
+                            && (matchEnd = closing(i + 2, end, marker == '*' ? DOUBLE_STAR : DOUBLE_UNDERSCORE)) != -1) {
+                        style = BOLD;
+                    }else if((matchEnd = closing(i + 1, end, marker == '*' ? STAR : UNDERSCORE)) != -1) {
+                        style = ITALICS;
+                    }
+                    break;
+                case '~':
+                    if(i + 1 < end && text.charAt(i + 1) == '~' && (matchEnd = closing(i + 2, end, TILDES)) != -1)
+                        style = STRIKETHROUGH;
+                    break;
+                case '`':
+                    if((matchEnd = closing(i + 1, end, BACKTICK)) != -1)
+                        style = INLINE_CODE;
+                    break;
+                case '!':
+                    if(i + 1 < end && text.charAt(i + 1) == '[' && (matchEnd = linkEnd(i + 1, end)) != -1)
+                        style = IMAGE;
+                    break;
+                case '[':
+                    if((matchEnd = linkEnd(i, end)) != -1)
+                        style = LINK;
+                    break;
+                default:
+            }
+
+            if(style != null) {
+                style(style, i, matchEnd);
+                i = matchEnd;
+            }else{
+                i++;
+            }
+        }
+    }
+
+    // The end of a span opened before contentStart, the content must start with a non-blank character
+    private int closing(int contentStart, int end, int kind) {
+        if(contentStart >= end || Character.isWhitespace(text.charAt(contentStart)))
+            return -1;
+        int close = indexOf(kind, contentStart + 1, end);
+        return close == -1 ? -1 : close + SEARCHES[kind].length();
+    }
+
+    // [text](url), both parts need at least one character
+    private int linkEnd(int open, int end) {
+        int close = indexOf(LINK_MIDDLE, open + 2, end);
+        if(close == -1)
+            return -1;
+        int urlEnd = indexOf(LINK_CLOSE, close + 3, end);
+        return urlEnd == -1 ? -1 : urlEnd + 1;
+    }
+
+    // Like String.indexOf for one of the SEARCHES but never looks past the end of the line
+    private int indexOf(int kind, int from, int end) {
+        String search = SEARCHES[kind];
+        if(from < searchedFrom[kind] || from > found[kind]) {
+            int i = from;
+            while(i < end && !(i + search.length() <= end && text.startsWith(search, i)))
+                i++;
+            searchedFrom[kind] = from;
+            found[kind] = i;
+        }
+        return found[kind] >= end ? -1 : found[kind];
+    }
+
+    private boolean isFence(int start, int end, char fence) {
+        return end - start >= 3 && count(start, end, fence) >= 3;
+    }
+
+    // At least as many of the fence characters as opened it and nothing after them but spaces
+    private boolean isClosingFence(int start, int end, char fence) {
+        int length = count(start, end, (char) (fence & 0xFF));
+        if(length < fence >> 8)
+            return false;
+        for(int i = start + length; i < end; i++) {
+            if(!Character.isWhitespace(text.charAt(i)))
+                return false;
+        }
+        return true;
+    }
+
+    // Three or more -, * or _ with nothing else on the line but spaces
+    private boolean isRule(int start, int end) {
+        if(start >= end)
+            return false;
+        char c = text.charAt(start);
+        if(c != '-' && c != '*' && c != '_')
+            return false;
+        int markers = 0;
+        for(int i = start; i < end; i++) {
+            char current = text.charAt(i);
+            if(current == c) {
+                markers++;
+            }else if(current != ' ' && current != '\t' && current != '\r') {
+                return false;
+            }
+        }
+        return markers >= 3;
+    }
+
+    private int count(int start, int end, char c) {
+        int i = start;
+        while(i < end && text.charAt(i) == c)
+            i++;
+        return i - start;
+    }
+
+    private void style(Collection<String> style, int start, int end) {
+        if(end > start)
+            syntax.add(new StyleLayer.Span(offset + start, offset + end, style));
+    }
+
+}
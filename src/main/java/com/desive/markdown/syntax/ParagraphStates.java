@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2017  TextMd
+ *
+ * This file is part of TextMd.
+ *
+ * TextMd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.desive.markdown.syntax;
+
+import com.google.common.collect.Lists;
+
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ The fence open at the start of every paragraph in a gap buffer. Lines added or removed
+ by an edit only move the states between the gap and the edit, so typing in one place
+ of a long document does not copy the states of all the paragraphs after it.
+*/
+class ParagraphStates {
+
+    private char[] states = new char[16];
+    private int gapStart = 0, gapEnd = states.length;
+
+    int size() {
+        return states.length - (gapEnd - gapStart);
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    char get(int paragraph) {
+        return states[paragraph < gapStart ? paragraph : paragraph + gapEnd - gapStart];
+    }
+
+    void set(int paragraph, char state) {
+        states[paragraph < gapStart ? paragraph : paragraph + gapEnd - gapStart] = state;
+    }
+
+    void reset(List<Character> replacement) {
+        states = new char[Math.max(16, replacement.size() * 2)];
+        for(int i = 0; i < replacement.size(); i++)
+            states[i] = replacement.get(i);
+        gapStart = replacement.size();
+        gapEnd = states.length;
+    }
+
+    // Copy of the states of the paragraphs between from and to (exclusive)
+    List<Character> copy(int from, int to) {
+        List<Character> copy = Lists.newArrayListWithCapacity(to - from);
+        for(int i = from; i < to; i++)
+            copy.add(get(i));
+        return copy;
+    }
+
+    // Removes the states of the paragraphs at the given index and inserts new ones with the given state there
+    void replace(int paragraph, int removed, int inserted, char state) {
+        moveGap(paragraph);
+        gapEnd += Math.min(removed, states.length - gapEnd);
+        if(inserted > gapEnd - gapStart) {
+            int length = Math.max(states.length * 2, size() + inserted + 16);
+            char[] grown = new char[length];
+            System.arraycopy(states, 0, grown, 0, gapStart);
+            int tail = states.length - gapEnd;
+            System.arraycopy(states, gapEnd, grown, length - tail, tail);
+            states = grown;
+            gapEnd = length - tail;
+        }
+        Arrays.fill(states, gapStart, gapStart + inserted, state);
+        gapStart += inserted;
+    }
+
+    private void moveGap(int paragraph) {
+        if(paragraph < gapStart) {
+            int moved = gapStart - paragraph;
+            System.arraycopy(states, paragraph, states, gapEnd - moved, moved);
+            gapStart -= moved;
+            gapEnd -= moved;
+        }else if(paragraph > gapStart) {
+            int moved = paragraph - gapStart;
+            System.arraycopy(states, gapEnd, states, gapStart, moved);
+            gapStart += moved;
+            gapEnd += moved;
+        }
+    }
+
+}
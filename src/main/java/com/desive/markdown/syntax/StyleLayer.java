@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2017  TextMd
+ *
+ * This file is part of TextMd.
+ *
+ * TextMd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.desive.markdown.syntax;
+
+import com.google.common.collect.Lists;
+
+import java.util.Collection;
+import java.util.List;
+
+/*
+ One independent source of styles (syntax, spellcheck, ...) as a sorted list of
+ non-overlapping spans in document offsets. Unstyled text has no span at all so a
+ layer with a handful of matches stays a handful of entries.
+
+ An edit only moves the spans it touches. The offsets of the spans from index shiftFrom
+ on are stored without the shift of the edits after them, which is applied when they
+ are read and moved into the spans only between the places of consecutive edits.
+*/
+public class StyleLayer {
+
+    private final List<Span> spans = Lists.newArrayList();
+    private int shiftFrom = 0, shift = 0;
+
+    int size() {
+        return spans.size();
+    }
+
+    int startOf(int index) {
+        return spans.get(index).start + (index >= shiftFrom ? shift : 0);
+    }
+
+    int endOf(int index) {
+        return spans.get(index).end + (index >= shiftFrom ? shift : 0);
+    }
+
+    Collection<String> stylesOf(int index) {
+        return spans.get(index).styles;
+    }
+
+    public boolean isEmpty() {
+        return spans.isEmpty();
+    }
+
+    public int getStart() {
+        return spans.isEmpty() ? 0 : startOf(0);
+    }
+
+    public int getEnd() {
+        return spans.isEmpty() ? 0 : endOf(spans.size() - 1);
+    }
+
+    public void clear() {
+        spans.clear();
+        shiftFrom = shift = 0;
+    }
+
+    // Replaces everything between from and to, the replacement has to lie within that range
+    public void replace(int from, int to, List<Span> replacement) {
+        int first = indexAfter(from), last = first;
+        while(last < spans.size() && startOf(last) < to)
+            last++;
+        moveShift(last);
+
+        List<Span> middle = Lists.newArrayListWithCapacity(replacement.size() + 2);
+        if(first < last && spans.get(first).start < from)
+            middle.add(new Span(spans.get(first).start, from, spans.get(first).styles));
+        middle.addAll(replacement);
+        if(first < last && spans.get(last - 1).end > to)
+            middle.add(new Span(to, spans.get(last - 1).end, spans.get(last - 1).styles));
+
+        List<Span> removed = spans.subList(first, last);
+        removed.clear();
+        spans.addAll(first, middle);
+        shiftFrom += middle.size() - (last - first);
+    }
+
+    // The span covering the offset, null if the text there is unstyled
+    public Span spanAt(int offset) {
+        int index = indexAfter(offset);
+        return index < spans.size() && startOf(index) <= offset ? new Span(startOf(index), endOf(index), stylesOf(index)) : null;
+    }
+
+    // Moves the spans with the text, spans inside removed text shrink or disappear
+    public void textChanged(int position, int removedLength, int insertedLength) {
+        int removedEnd = position + removedLength, delta = insertedLength - removedLength;
+        int first = indexAfter(position), last = first;
+        while(last < spans.size() && startOf(last) < removedEnd)
+            last++;
+        moveShift(last);
+
+        // Text inserted at the end of a span is left unstyled, text inserted inside one extends it
+        for(int i = first; i < last; i++) {
+            Span span = spans.get(i);
+            span.start = span.start < position ? span.start : position + insertedLength;
+            span.end = span.end > removedEnd ? span.end + delta : position;
+        }
+        // Everything after the removed text only moves
+        shift += delta;
+
+        List<Span> touched = spans.subList(first, last);
+        int before = touched.size();
+        touched.removeIf(span -> span.start >= span.end);
+        shiftFrom -= before - touched.size();
+    }
+
+    // Applies the shift to the spans between the old and the new shiftFrom only
+    private void moveShift(int index) {
+        if(shift == 0) {
+            shiftFrom = index;
+            return;
+        }
+        for(; shiftFrom < index; shiftFrom++) {
+            spans.get(shiftFrom).start += shift;
+            spans.get(shiftFrom).end += shift;
+        }
+        for(; shiftFrom > index; shiftFrom--) {
+            spans.get(shiftFrom - 1).start -= shift;
+            spans.get(shiftFrom - 1).end -= shift;
+        }
+    }
+
+    // Index of the first span that ends after the offset
+    int indexAfter(int offset) {
+        int low = 0, high = spans.size();
+        while(low < high) {
+            int middle = (low + high) >>> 1;
+            if(endOf(middle) <= offset) {
+                low = middle + 1;
+            }else{
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    public static class Span {
+
+        int start, end;
+        final Collection<String> styles;
+
+        public Span(int start, int end, Collection<String> styles) {
+            this.start = start;
+            this.end = end;
+            this.styles = styles;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+
+        public Collection<String> getStyles() {
+            return styles;
+        }
+
+    }
+
+}
@@ -19,23 +19,16 @@
 
 package com.desive.markdown.syntax;
 
+import com.desive.markdown.syntax.LayeredStyles.Layer;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Streams;
 import org.fxmisc.richtext.CodeArea;
-import org.fxmisc.richtext.model.StyleSpan;
-import org.fxmisc.richtext.model.StyleSpans;
+import org.fxmisc.richtext.model.PlainTextChange;
+import org.fxmisc.richtext.model.TwoDimensional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
-
-import static com.desive.markdown.syntax.SyntaxHighlighter.Patterns.*;
+import java.util.concurrent.Callable;
 
 /*
  Created by Jack DeSive on 11/16/2017 at 7:53 PM
@@ -44,177 +37,310 @@ public class SyntaxHighlighter {
 
     private static final Logger logger = LoggerFactory.getLogger(SyntaxHighlighter.class);
 
+    // Paragraphs after the last edited one that snapshotChanges copies in case an opened or closed fence restyles them
+    private static final int LOOKAHEAD_PARAGRAPHS = 500;
+
+    private final LayeredStyles styles = new LayeredStyles();
+
+    // The fence open at the start of every paragraph and the paragraphs edited since the last highlight
+    private final ParagraphStates paragraphStates = new ParagraphStates();
+    private int dirtyFrom = -1, dirtyTo = -1;
+
+    // Counts the changes of the text, a job whose snapshot is older than the current version is dropped
+    private long version = 0;
+
+    // Paragraph ranges [from, to) that were lexed by a full highlight but not styled in the area yet
+    private final List<int[]> pending = Lists.newArrayList();
+
     public SyntaxHighlighter() {
 
     }
 
+    // Lexes and styles the whole text on the calling thread
     public void compute(String text, CodeArea parent) {
+        install(lexAll(text, version));
+        apply(parent, 0, paragraphStates.size());
+    }
 
-        Matcher matcher = getHighlightingPattern().matcher(text);
-
-        while(matcher.find()) {
-
-            String styleClass = getStyleClass(matcher);
-            // For now lets setStyles for base style.
-            parent.setStyle(matcher.start(), matcher.end(), Collections.singleton(styleClass));
-
-            // Then we can grab the style from the document via subView and overlay
-            for(HighlightStyle style : getChildStyles(styleClass, getText(matcher.start(), matcher.end(), parent))){
-                StyleSpans spans = parent.getStyleSpans(matcher.start(), matcher.end()).subView(style.start, style.end).overlay(
-                        StyleSpans.singleton(new StyleSpan<>(
-                                Arrays.asList(style.styleClasses),
-                                (style.end - style.start)
-                        )),
-                        (strings, strings2) -> {
-                            Collection<String> coll = Streams.concat(strings.stream(), strings2.stream()).collect(Collectors.toList());
-                            logger.debug(coll.toString());
-                            return coll;
-                        }
-                );
-                parent.setStyleSpans(matcher.start(), spans); // Reset styles
-            }
+    /*
+     Captures an immutable snapshot of the whole text, the returned job lexes it on any
+     thread and its result is handed to install on the FX thread.
+    */
+    public Callable<Highlighting> snapshotAll(CodeArea parent) {
+        String text = parent.getText();
+        long snapshotVersion = version;
+        return () -> lexAll(text, snapshotVersion);
+    }
+
+    /*
+     Captures what is needed to re-lex the paragraphs edited since the last install, or the
+     whole text if it was never highlighted. Returns null when nothing changed. Only the
+     edited paragraphs and a few after them are copied, a fence change that reaches past
+     them leaves the rest dirty for the next snapshot, see Highlighting.isComplete.
+    */
+    public Callable<Highlighting> snapshotChanges(CodeArea parent) {
+        int paragraphs = parent.getParagraphs().size();
+        if(paragraphStates.size() != paragraphs)
+            return snapshotAll(parent);
+        if(dirtyFrom == -1)
+            return null;
+
+        long snapshotVersion = version;
+        int paragraph = Math.min(dirtyFrom, paragraphs - 1), lastDirty = dirtyTo;
+        int end = (int) Math.min(paragraphs, Math.max(paragraph, (long) lastDirty) + 1 + LOOKAHEAD_PARAGRAPHS);
+        List<String> lines = Lists.newArrayListWithCapacity(end - paragraph);
+        for(int i = paragraph; i < end; i++)
+            lines.add(parent.getText(i));
+        int offset = parent.position(paragraph, 0).toOffset();
+        // One state more than lines if a paragraph follows them, it is where a fence change has to be carried on from
+        List<Character> states = paragraphStates.copy(paragraph, Math.min(paragraphs, end + 1));
+        return () -> lexChanges(lines, snapshotVersion, paragraph, offset, lastDirty, states);
+    }
+
+    /*
+     Takes over the spans and fence states of a finished job. Returns false without
+     changing anything if the text was edited after the snapshot was taken, the edit
+     schedules a newer job of its own. The restyled paragraphs still have to be applied.
+    */
+    public boolean install(Highlighting highlighting) {
+        if(highlighting.version != version) {
+            logger.debug("Dropped the highlighting of version {}, the text is at version {}", highlighting.version, version);
+            return false;
         }
 
+        styles.get(Layer.SYNTAX).replace(highlighting.from, highlighting.to, highlighting.syntax);
+        styles.get(Layer.HEADING_TAGS).replace(highlighting.from, highlighting.to, highlighting.tags);
+        if(highlighting.isFull()) {
+            paragraphStates.reset(highlighting.states);
+            pending.clear();
+            pending.add(new int[]{0, paragraphStates.size()});
+        }else{
+            // The first state is where lexing started from, it did not change
+            for(int i = 1; i < highlighting.states.size(); i++)
+                paragraphStates.set(highlighting.fromParagraph + i, highlighting.states.get(i));
+        }
+        dirtyFrom = dirtyTo = highlighting.complete ? -1 : highlighting.toParagraph;
+        return true;
     }
 
-    private List<HighlightStyle> getChildStyles(String styleClass, String text) {
-        List<HighlightStyle> styles = Lists.newArrayList();
-        Matcher match;
-        switch (styleClass) {
-            case "hrule":
-                // Do nothing.
-                break;
-            case "heading1":
-            case "heading2":
-            case "heading3":
-            case "heading4":
-            case "heading5":
-            case "heading6":
-                match = Pattern.compile(HEADING_TAG.getPattern()).matcher(text);
-                while (match.find()){
-                    styles.add(new HighlightStyle(match.start(), match.end(),"heading-tag"));
-                }
-                break;
-            case "bold":
-                /*match = Pattern.compile(BOLD_TAG.getPattern()).matcher(text);
-                while (match.find()){
-                    styles.add(new HighlightStyle(match.start(), match.end(),"bold-tag"));
-                }*/
-                break;
-            case "italics":
-                break;
-            case "strikethrough":
-                break;
-            case "inline-code":
-                break;
-            case "image":
-                break;
-            case "link":
+    private static Highlighting lexAll(String text, long version) {
+        List<Character> states = Lists.newArrayList();
+        List<StyleLayer.Span> syntax = Lists.newArrayList(), tags = Lists.newArrayList();
+        new MarkdownLexer().lex(text, states, syntax, tags);
+        return new Highlighting(version, 0, states.size(), 0, Integer.MAX_VALUE, states, syntax, tags, true);
+    }
+
+    /*
+     Re-lexes from the first edited paragraph and keeps going past the last one only while
+     the fence state at the start of the next paragraph differs from what it was. Stops
+     incomplete at the end of the copied lines, the changed state of the paragraph after
+     them is kept so the next job carries on from there.
+    */
+    private static Highlighting lexChanges(List<String> lines, long version, int fromParagraph, int from,
+                                           int lastDirty, List<Character> states) {
+        MarkdownLexer lexer = new MarkdownLexer();
+        List<StyleLayer.Span> syntax = Lists.newArrayList(), tags = Lists.newArrayList();
+        int index = 0, offset = from;
+        char fence = states.get(0);
+        boolean complete = true;
+        while(true) {
+            String line = lines.get(index);
+            fence = lexer.lexParagraph(line, offset, index + 1 < states.size(), fence, syntax, tags);
+            // The line break belongs to the paragraph, code blocks style it
+            offset += line.length() + 1;
+
+            index++;
+            if(index >= states.size() || (fromParagraph + index > lastDirty && states.get(index) == fence))
                 break;
-            case "code":
+            states.set(index, fence);
+            if(index >= lines.size()) {
+                complete = false;
                 break;
-            default:
-
+            }
         }
-        return styles;
+        return new Highlighting(version, fromParagraph, fromParagraph + index, from, offset,
+                states.subList(0, complete ? index : index + 1), syntax, tags, complete);
     }
 
-    private String getStyleClass(Matcher matcher){
-        return matcher.group("HRULE") != null ? "hrule" :
-               matcher.group("HEADING1") != null ? "heading1" :
-               matcher.group("HEADING2") != null ? "heading2" :
-               matcher.group("HEADING3") != null ? "heading3" :
-               matcher.group("HEADING4") != null ? "heading4" :
-               matcher.group("HEADING5") != null ? "heading5" :
-               matcher.group("HEADING6") != null ? "heading6" :
-               matcher.group("BOLD") != null ? "bold" :
-               matcher.group("ITALICS") != null ? "italics" :
-               matcher.group("STRIKE") != null ? "strikethrough" :
-               matcher.group("INLINECODE") != null ? "inline-code" :
-               matcher.group("IMAGE") != null ? "image" :
-               matcher.group("LINK") != null ? "link" :
-               matcher.group("CODE") != null ? "code" :
-               null;
+    // Changes with every edit of the text, results computed for an older version are out of date
+    public long getVersion() {
+        return version;
     }
 
-    private String getText(int start, int end, CodeArea area) {
-        return area.getText().substring(start, end);
+    public boolean hasPending() {
+        return !pending.isEmpty();
     }
 
-    private Pattern getHighlightingPattern() {
-        return Pattern.compile(
-                "(?<HEADING1>" + HEADING_1_PATTERN + ")"
-                        + "|(?<HEADING2>" + HEADING_2_PATTERN + ")"
-                        + "|(?<HEADING3>" + HEADING_3_PATTERN + ")"
-                        + "|(?<HEADING4>" + HEADING_4_PATTERN + ")"
-                        + "|(?<HEADING5>" + HEADING_5_PATTERN + ")"
-                        + "|(?<HEADING6>" + HEADING_6_PATTERN + ")"
-                        + "|(?<HRULE>" + HRULE_PATTERN + ")"
-                        + "|(?<BOLD>" + BOLD_PATTERN + ")"
-                        + "|(?<ITALICS>" + ITALICS_PATTERN + ")"
-                        + "|(?<STRIKE>" + STRIKETHROUGH_PATTERN + ")"
-                        + "|(?<CODE>" + CODE_PATTERN + ")"
-                        + "|(?<INLINECODE>" + INCLINE_CODE_PATTERN + ")"
-                        + "|(?<IMAGE>" + IMAGE_PATTERN + ")"
-                        + "|(?<LINK>" + LINK_PATTERN + ")"
-                , Pattern.MULTILINE
-        );
+    // Styles the pending paragraphs between from and to (exclusive) right away
+    public void applyPending(CodeArea parent, int from, int to) {
+        for(int[] range : Lists.newArrayList(pending)) {
+            int start = Math.max(range[0], from), end = Math.min(range[1], to);
+            if(start < end)
+                apply(parent, start, end);
+        }
     }
 
-    class HighlightStyle {
+    /*
+     Styles up to count pending paragraphs, taking the ones closest to the given paragraph
+     first. Returns false once nothing is pending anymore.
+    */
+    public boolean applyNextSlice(CodeArea parent, int near, int count) {
+        int[] closest = null;
+        int distance = Integer.MAX_VALUE;
+        for(int[] range : pending) {
+            int rangeDistance = near < range[0] ? range[0] - near : near >= range[1] ? near - range[1] + 1 : 0;
+            if(rangeDistance < distance) {
+                closest = range;
+                distance = rangeDistance;
+            }
+        }
+        if(closest == null)
+            return false;
+
+        if(near >= closest[1]) {
+            apply(parent, Math.max(closest[0], closest[1] - count), closest[1]);
+        }else{
+            int start = Math.max(closest[0], near);
+            apply(parent, start, Math.min(closest[1], start + count));
+        }
+        return !pending.isEmpty();
+    }
 
-        String[] styleClasses;
-        List<HighlightStyle> children = Lists.newArrayList();
-        int start, end;
+    // Styles the paragraphs between from and to (exclusive) from the layers
+    public void apply(CodeArea parent, int from, int to) {
+        int paragraphs = parent.getParagraphs().size();
+        if(from < paragraphs) {
+            int start = parent.position(from, 0).toOffset();
+            int end = to >= paragraphs ? parent.getLength() : parent.position(to, 0).toOffset();
+            parent.setStyleSpans(start, styles.compose(start, end));
+        }
 
-        public HighlightStyle(int start, int end, String... styleClasses) {
-            this.styleClasses = styleClasses;
-            this.start = start;
-            this.end = end;
+        List<int[]> remaining = Lists.newArrayListWithCapacity(pending.size() + 1);
+        for(int[] range : pending) {
+            if(range[1] <= from || range[0] >= to) {
+                remaining.add(range);
+                continue;
+            }
+            if(range[0] < from)
+                remaining.add(new int[]{range[0], from});
+            if(range[1] > to)
+                remaining.add(new int[]{to, range[1]});
         }
+        pending.clear();
+        pending.addAll(remaining);
     }
 
+    public StyleLayer getLayer(Layer layer) {
+        return styles.get(layer);
+    }
 
-    enum Patterns {
+    // Replaces one of the overlay layers and restyles only the text it covered before or covers now
+    public void setLayer(CodeArea parent, Layer layer, List<StyleLayer.Span> spans) {
+        StyleLayer styleLayer = styles.get(layer);
+        int from = styleLayer.isEmpty() ? Integer.MAX_VALUE : styleLayer.getStart();
+        int to = styleLayer.getEnd();
+        if(!spans.isEmpty()) {
+            from = Math.min(from, spans.get(0).getStart());
+            to = Math.max(to, spans.get(spans.size() - 1).getEnd());
+        }
+        styleLayer.replace(0, Integer.MAX_VALUE, spans);
 
-        // General Patterns
-        BRACKET(""),
-        HEADING_TAG("#+"),
-        BOLD_TAG("(?<BOLDTAG>\\*\\*|__)"),
+        to = Math.min(to, parent.getLength());
+        if(from < to)
+            parent.setStyleSpans(from, styles.compose(from, to));
+    }
 
-        // Markdown Heading Patterns
-        HEADING_1_PATTERN("(^# (.*))"),
-        HEADING_2_PATTERN("(^## (.*))"),
-        HEADING_3_PATTERN("(^### (.*))"),
-        HEADING_4_PATTERN("(^#### (.*))"),
-        HEADING_5_PATTERN("(^##### (.*))"),
-        HEADING_6_PATTERN("(^###### (.*))"),
+    // Call for every change of the area, the paragraphs it touched are part of the next snapshotChanges
+    public void textChanged(CodeArea parent, PlainTextChange change) {
+        version++;
+        styles.textChanged(change.getPosition(), change.getRemoved().length(), change.getInserted().length());
+        if(paragraphStates.isEmpty())
+            return; // Nothing highlighted yet, snapshotChanges lexes everything
+
+        int paragraph = parent.offsetToPosition(change.getPosition(), TwoDimensional.Bias.Forward).getMajor();
+        int removedLines = countLines(change.getRemoved()), insertedLines = countLines(change.getInserted());
+        if(removedLines != 0 || insertedLines != 0) {
+            int next = Math.min(paragraph + 1, paragraphStates.size());
+            paragraphStates.replace(next, Math.min(removedLines, paragraphStates.size() - next), insertedLines, MarkdownLexer.NO_FENCE);
+        }
 
-        // Markdown Inline Patterns
-        BOLD_PATTERN("(\\*{2})\\S.*?(\\*{2})|(__)\\S.*?(__)"),
-        ITALICS_PATTERN("((\\*)\\S(.*?)(\\*)|(_)\\S(.*?)(_))"),
-        STRIKETHROUGH_PATTERN("((~~)\\S(.*?)(~~))"),
-        INCLINE_CODE_PATTERN("(`\\S(.*?)`)"),
-        IMAGE_PATTERN("(!\\[\\S.*\\S]\\(\\S.*\\S\\))"),
-        LINK_PATTERN("(\\[\\S.*\\S]\\(\\S.*\\S\\))"),
-        HRULE_PATTERN("($-{3,}|\\*{3,}|_{3,}^)"),
+        for(int[] range : pending) {
+            range[0] = shift(range[0], paragraph, removedLines, insertedLines);
+            range[1] = shift(range[1], paragraph, removedLines, insertedLines);
+        }
+        pending.removeIf(range -> range[0] >= range[1]);
+
+        if(dirtyFrom == -1) {
+            dirtyFrom = paragraph;
+            dirtyTo = paragraph + insertedLines;
+        }else{
+            dirtyFrom = Math.min(shift(dirtyFrom, paragraph, removedLines, insertedLines), paragraph);
+            dirtyTo = Math.max(shift(dirtyTo, paragraph, removedLines, insertedLines), paragraph + insertedLines);
+        }
+    }
+
+    // Where a paragraph index ends up after lines were replaced at the given paragraph
+    private int shift(int index, int paragraph, int removedLines, int insertedLines) {
+        if(index <= paragraph)
+            return index;
+        if(index <= paragraph + removedLines)
+            return paragraph;
+        return index + insertedLines - removedLines;
+    }
 
-        // Markdown Element Patterns
-        CODE_PATTERN("(```[a-z]*\\n(?:(?!```)[\\s\\S])+```)");
+    private int countLines(String text) {
+        int lines = 0;
+        for(int i = 0; i < text.length(); i++) {
+            if(text.charAt(i) == '\n')
+                lines++;
+        }
+        return lines;
+    }
 
-        private String pattern;
+    /*
+     The spans and fence states a job lexed for the paragraphs [fromParagraph, toParagraph)
+     that span the text [from, to) of the snapshot with the given version.
+    */
+    public static class Highlighting {
+
+        private final long version;
+        private final int fromParagraph, toParagraph, from, to;
+        private final List<Character> states;
+        private final List<StyleLayer.Span> syntax, tags;
+        private final boolean complete;
+
+        Highlighting(long version, int fromParagraph, int toParagraph, int from, int to,
+                     List<Character> states, List<StyleLayer.Span> syntax, List<StyleLayer.Span> tags, boolean complete) {
+            this.version = version;
+            this.fromParagraph = fromParagraph;
+            this.toParagraph = toParagraph;
+            this.from = from;
+            this.to = to;
+            this.states = states;
+            this.syntax = syntax;
+            this.tags = tags;
+            this.complete = complete;
+        }
+
+        public boolean isFull() {
+            return fromParagraph == 0 && to == Integer.MAX_VALUE;
+        }
+
+        // False if a fence change reached past the copied paragraphs, snapshotChanges picks up from toParagraph
+        public boolean isComplete() {
+            return complete;
+        }
 
-        Patterns(String pattern) {
-            this.pattern = pattern;
+        public int getFromParagraph() {
+            return fromParagraph;
         }
 
-        public String getPattern() {
-            return pattern;
+        public int getToParagraph() {
+            return toParagraph;
         }
 
-        @Override
-        public String toString(){
-            return pattern;
+        public int getParagraphs() {
+            return toParagraph - fromParagraph;
         }
 
     }
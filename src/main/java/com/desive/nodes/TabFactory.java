@@ -39,8 +39,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.Scanner;
+import java.io.IOException;
+import java.util.function.Consumer;
 
 /*
  Created by Jack DeSive on 10/13/2017 at 7:04 PM
@@ -62,16 +62,33 @@ public class TabFactory {
         this.ownerStage = ownerStage;
         addSampleEditorTab(); // temp
 
-        // Reset the caret position pane on tab select
-        tabPane.getSelectionModel().selectedItemProperty().addListener((ov, oldTab, newTab) -> CaretPositionPane.resetPosition(newTab != null ? ((EditorTab) newTab).getEditorPane() : null));
+        // Reset the caret position pane and hand the load status over on tab select
+        tabPane.getSelectionModel().selectedItemProperty().addListener((ov, oldTab, newTab) -> {
+            if(oldTab != null)
+                ((EditorTab) oldTab).getEditorPane().hideLoadStatus();
+            if(newTab != null)
+                ((EditorTab) newTab).getEditorPane().showLoadStatus();
+            CaretPositionPane.resetPosition(newTab != null ? ((EditorTab) newTab).getEditorPane() : null);
+        });
 
     }
 
-    public void createAndAddNewEditorTab(File file) throws FileNotFoundException {
-        createAndAddNewEditorTab(file, new Scanner(file).useDelimiter("\\Z").next());
+    // Opens the tab right away and reads the file into it in the background, the tab is closed again if that fails
+    public void createAndAddNewEditorTab(File file, Consumer<IOException> onFailed) {
+        EditorTab tab = createAndAddNewEditorTab(file, dictionary.EDITOR_LOADING_PLACEHOLDER);
+        tab.getEditorPane().loadFile(file, 0, e -> {
+            closeTab(tab);
+            onFailed.accept(e);
+        });
     }
 
-    public void createAndAddNewEditorTab(File file, String fileContent) {
+    // Closes a tab without asking to save it, for tabs whose content never loaded
+    public void closeTab(EditorTab tab) {
+        tab.getEditorPane().dispose();
+        tabPane.getTabs().remove(tab);
+    }
+
+    public EditorTab createAndAddNewEditorTab(File file, String fileContent) {
 
         if(editorToolBar == null) {
             throw new TabFactoryNotInitializedException();
@@ -81,6 +98,7 @@ public class TabFactory {
         EditorTab newTab = new EditorTab(editorPane);
         newTab.getEditorPane().setFile(file);
         addEditorTab(newTab);
+        return newTab;
     }
 
     private void addEditorTab(EditorTab editorTab) {
@@ -107,8 +125,8 @@ public class TabFactory {
         getSelectedEditorTab().getEditorPane().refreshWebView();
     }
 
-    public boolean spellcheckSelectedTab() {
-        return getSelectedEditorTab().getEditorPane().spellcheckDocument();
+    public void spellcheckSelectedTab(Consumer<Boolean> onChecked) {
+        getSelectedEditorTab().getEditorPane().spellcheckDocument(onChecked);
     }
 
     public void setMarkdownParser(MarkdownParser markdownParser) {
@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2017  TextMd
+ *
+ * This file is part of TextMd.
+ *
+ * TextMd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.desive.nodes.editor;
+
+import com.desive.nodes.editor.toolbars.EditorToolBar;
+import com.desive.utilities.Http;
+import com.desive.utilities.TextEncoding;
+import com.desive.utilities.TextFiles;
+import com.desive.utilities.TextReceiver;
+import javafx.application.Platform;
+import org.fxmisc.richtext.CodeArea;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/*
+ Loads a url or a file into one editor without blocking the FX thread. The content is
+ streamed in chunks that are appended as they arrive, the action text shows the bytes
+ read and a cancel link until the load ends, but only while the editor's tab is the
+ selected one. The toolbar is shared, showStatus and hideStatus hand the progress and
+ the cancel link over when the selection changes. The editor is read only in the meantime
+ so the loaded text always sits at the end of it. Only a few chunks wait for the FX
+ thread at a time, a fast source waits for the editor instead of filling the event queue.
+*/
+public class ContentLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentLoader.class);
+
+    private static final long PROGRESS_INTERVAL_MILLIS = 100;
+    private static final int MAX_PENDING_CHUNKS = 4;
+    private static final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "content-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Reads the content on the loader thread, has to stop with an IOException once cancelled
+    private interface Source {
+        void read(TextReceiver receiver) throws IOException;
+    }
+
+    private final CodeArea editor;
+    private final EditorToolBar editorToolBar;
+    private final BooleanSupplier showing;
+    private final Runnable onFinished;
+    private Runnable cancelAction = null;
+    private String progressText = "";
+
+    // showing tells if the editor's tab is selected, onFinished runs on the FX thread once a load completed without being cancelled
+    public ContentLoader(CodeArea editor, EditorToolBar editorToolBar, BooleanSupplier showing, Runnable onFinished) {
+        this.editor = editor;
+        this.editorToolBar = editorToolBar;
+        this.showing = showing;
+        this.onFinished = onFinished;
+    }
+
+    public void loadUrl(String url, int from, Consumer<IOException> onFailed) {
+        Http.Call call = new Http.Call();
+        load("\'" + url + "\'", receiver -> Http.request(url, null, null, null, "GET", call, receiver), call::cancel, from, () -> {}, onFailed);
+    }
+
+    // onLoaded gets the encoding the file was decoded with
+    public void loadFile(File file, int from, Consumer<TextEncoding> onLoaded, Consumer<IOException> onFailed) {
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        TextEncoding[] encoding = {null};
+        load("\'" + file.getName() + "\'", receiver -> encoding[0] = TextFiles.read(file, cancelled::get, receiver),
+                () -> cancelled.set(true), from, () -> onLoaded.accept(encoding[0]), onFailed);
+    }
+
+    /*
+     Replaces the text from the offset to the end, a placeholder or nothing, with the content.
+     If the load fails or is cancelled that text is removed again and onFailed gets the
+     exception, an InterruptedIOException for a cancel. Call on the FX thread and only
+     when nothing is loading.
+    */
+    private void load(String name, Source source, Runnable cancel, int from, Runnable onLoaded, Consumer<IOException> onFailed) {
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        cancelAction = () -> {
+            cancelled.set(true);
+            cancel.run();
+        };
+        editor.setEditable(false);
+        setProgressText("Loading " + name);
+
+        long start = System.currentTimeMillis();
+        executor.execute(() -> {
+            // Only touched by the FX thread, runLater keeps the chunks in order
+            boolean[] placeholder = {true};
+            long[] lastProgress = {0};
+            Semaphore pendingChunks = new Semaphore(MAX_PENDING_CHUNKS);
+            try {
+                source.read(new TextReceiver() {
+                    @Override
+                    public void text(String chunk) {
+                        // Released by the FX thread, which keeps going after a cancel so this never blocks for good
+                        pendingChunks.acquireUninterruptibly();
+                        Platform.runLater(() -> {
+                            try {
+                                if(placeholder[0]) {
+                                    editor.replaceText(from, editor.getLength(), chunk);
+                                    placeholder[0] = false;
+                                }else{
+                                    editor.appendText(chunk);
+                                }
+                            } finally {
+                                pendingChunks.release();
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void progress(long read, long length) {
+                        long now = System.currentTimeMillis();
+                        if(now - lastProgress[0] < PROGRESS_INTERVAL_MILLIS)
+                            return;
+                        lastProgress[0] = now;
+                        String text = "Loading " + name + ": " + formatBytes(read) + (length < 0 ? "" : " of " + formatBytes(length));
+                        Platform.runLater(() -> {
+                            if(isLoading())
+                                setProgressText(text);
+                        });
+                    }
+                });
+                Platform.runLater(() -> {
+                    if(placeholder[0])
+                        editor.replaceText(from, editor.getLength(), "");
+                    onLoaded.run();
+                    finish(!cancelled.get());
+                    editor.moveTo(from);
+                    editor.requestFollowCaret();
+                    if(showing.getAsBoolean())
+                        editorToolBar.setActionText("Loaded " + name + " in " + (System.currentTimeMillis() - start) + "ms");
+                });
+            } catch (IOException e) {
+                logger.debug("Loading {} failed: {}", name, e.getMessage());
+                Platform.runLater(() -> {
+                    finish(false);
+                    // After finish the removal is an ordinary edit, a pane that is still open re-renders through its own subscriptions
+                    editor.replaceText(from, editor.getLength(), "");
+                    if(cancelled.get() && showing.getAsBoolean())
+                        editorToolBar.setActionText("Cancelled loading " + name);
+                    onFailed.accept(e);
+                });
+            }
+        });
+    }
+
+    public boolean isLoading() {
+        return cancelAction != null;
+    }
+
+    public void cancel() {
+        if(cancelAction != null)
+            cancelAction.run();
+    }
+
+    // Puts the progress and the cancel link of a running load back on the toolbar
+    public void showStatus() {
+        if(isLoading()) {
+            editorToolBar.setProgressText(progressText);
+            editorToolBar.setCancelAction(cancelAction);
+        }
+    }
+
+    // Takes them off again, the load keeps going in the background
+    public void hideStatus() {
+        if(isLoading()) {
+            editorToolBar.setProgressText("");
+            editorToolBar.setCancelAction(null);
+        }
+    }
+
+    private void setProgressText(String text) {
+        progressText = text;
+        if(showing.getAsBoolean())
+            showStatus();
+    }
+
+    // Only a completed load runs onFinished, a cancelled one may belong to an editor that is already disposed
+    private void finish(boolean completed) {
+        cancelAction = null;
+        editor.setEditable(true);
+        if(showing.getAsBoolean())
+            editorToolBar.setCancelAction(null);
+        if(completed)
+            onFinished.run();
+    }
+
+    private static String formatBytes(long bytes) {
+        if(bytes < 1024)
+            return bytes + " B";
+        if(bytes < 1024 * 1024)
+            return String.format("%.1f KB", bytes / 1024.0);
+        return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+
+}
@@ -21,17 +21,22 @@ package com.desive.nodes.editor;
 
 import com.desive.editor.file.FileFactory;
 import com.desive.editor.views.EditorView;
-import com.desive.markdown.MarkdownHighligher;
+import com.desive.markdown.IncrementalMarkdownParser;
 import com.desive.markdown.MarkdownParser;
+import com.desive.markdown.ParsedDocument;
+import com.desive.markdown.ParsedDocumentCache;
+import com.desive.markdown.syntax.LayeredStyles;
+import com.desive.markdown.syntax.StyleLayer;
 import com.desive.markdown.syntax.SyntaxHighlighter;
 import com.desive.nodes.editor.toolbars.EditorToolBar;
 import com.desive.nodes.editor.toolbars.nodes.CaretPositionPane;
 import com.desive.stages.dialogs.DialogFactory;
 import com.desive.utilities.Settings;
 import com.desive.utilities.Spellcheck;
+import com.desive.utilities.TextEncoding;
+import com.desive.utilities.UserDictionary;
 import com.desive.utilities.Utils;
 import com.desive.utilities.constants.Dictionary;
-import com.desive.utilities.constants.Timer;
 import com.google.common.collect.Maps;
 import javafx.animation.Animation;
 import javafx.animation.KeyFrame;
@@ -40,6 +45,9 @@ import javafx.application.Platform;
 import javafx.beans.InvalidationListener;
 import javafx.concurrent.Worker;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.SeparatorMenuItem;
 import javafx.scene.control.SplitPane;
 import javafx.scene.layout.StackPane;
 import javafx.scene.web.WebEngine;
@@ -51,7 +59,6 @@ import org.fxmisc.richtext.CodeArea;
 import org.fxmisc.richtext.LineNumberFactory;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
-import org.languagetool.rules.RuleMatch;
 import org.reactfx.Subscription;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -62,20 +69,39 @@ import javax.xml.bind.JAXBException;
 import java.io.File;
 import java.io.IOException;
 import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 import java.util.function.IntFunction;
+import java.util.stream.Collectors;
 
 /*
  Created by Jack DeSive on 10/8/2017 at 2:12 PM
 */
 public class EditorPane extends SplitPane {
 
+    private static final Collection<String> MISSPELLED = Collections.singletonList("misspelled");
+
+    // Documents with fewer paragraphs are small enough to highlight in one go
+    private static final int VIEWPORT_HIGHLIGHTING_MIN_PARAGRAPHS = 2000;
+    private static final int VIEWPORT_PADDING_PARAGRAPHS = 50, BACKGROUND_SLICE_PARAGRAPHS = 500;
+    private static final int LIVE_SPELLCHECK_DELAY_MILLIS = 750;
+
+    // Spellchecks block on the LanguageTool workers, they must not hold up preview and highlight renders
+    private static final ExecutorService spellcheckExecutor = PreviewRenderQueue.newExecutor("spellcheck-queue", 1);
+
     private Dictionary dict;
     private DialogFactory dialogFactory;
     private MarkdownParser markdownParser;
+    private IncrementalMarkdownParser incrementalParser;
+    private ParsedDocumentCache documentCache;
     private EditorToolBar editorToolBar;
     private Spellcheck spellcheck = new Spellcheck();
     private FileFactory fileFactory;
@@ -86,15 +112,26 @@ public class EditorPane extends SplitPane {
     private VirtualizedScrollPane<CodeArea> editorScrollPane = new VirtualizedScrollPane<>(getEditor());
     private VirtualizedScrollPane<VirtualWebView> viewScrollPane = new VirtualizedScrollPane<>(webView);
     private SyntaxHighlighter highlighter = new SyntaxHighlighter();
+    private ContentLoader contentLoader;
+    private BooleanSupplier showing = () -> true;
 
-    private Timer timer = new Timer();
     private Timeline covertTask = null;
+    private Timeline backgroundHighlightTask = null;
+    private PreviewRenderQueue<List<String>> renderQueue = new PreviewRenderQueue<>("preview");
+    private PreviewRenderQueue<SyntaxHighlighter.Highlighting> highlightQueue = new PreviewRenderQueue<>("highlighting");
+    private PreviewRenderQueue<Spellcheck.Result> spellcheckQueue = new PreviewRenderQueue<>("spellcheck", spellcheckExecutor);
+    private WebViewPatcher webViewPatcher = new WebViewPatcher(webEngine);
     private File file = new File(Utils.getDefaultFileName());
     private AtomicBoolean saved = new AtomicBoolean(false), prettifyCode = new AtomicBoolean(false);
     private String currentHtml = "", currentHtmlWithStyle = "";
+    private boolean currentHtmlWithStyleStale = false;
+    private boolean spellcheckFailed = false;
+    private boolean disposed = false;
+    // Encoding the document is saved in, that of the file it was opened from
+    private TextEncoding encoding = TextEncoding.UTF_8;
     private HashMap<String, List<String>> misspellingSuggestions = Maps.newHashMap();
 
-    private Subscription editorHighlightSubscription;
+    private Subscription editorHighlightSubscription, liveSpellcheckSubscription;
     private InvalidationListener caretPositionListener;
 
     public EditorPane(Dictionary dictionary,
@@ -107,14 +144,20 @@ public class EditorPane extends SplitPane {
         this.dict = dictionary;
         this.dialogFactory = dialogFactory;
         this.markdownParser = markdownParser;
+        this.incrementalParser = new IncrementalMarkdownParser(markdownParser);
+        this.documentCache = new ParsedDocumentCache(markdownParser);
         this.editorToolBar = editorToolBar;
         this.fileFactory = new FileFactory(primaryStage, editorToolBar);
+        this.contentLoader = new ContentLoader(editor, editorToolBar, () -> showing.getAsBoolean(), this::contentLoaded);
 
         styleEditor();
         styleWebView();
         setSyncViews();
+        createBackgroundHighlightTask();
         setContent(content);
         createEditorHighlightSubscription(Settings.EDITOR_HIGHLIGHT_REFRESH_RATE);
+        createLiveSpellcheckSubscription();
+        createSpellcheckContextMenu();
         getItems().addAll(getEditorWithScrollbar(), getWebViewWithScrollbar());
 
         caretPositionListener = event -> CaretPositionPane.resetPosition(this);
@@ -144,6 +187,7 @@ public class EditorPane extends SplitPane {
 
     public void setFile(File file) {
         this.file = file;
+        spellcheck.setDictionary(UserDictionary.forDocument(file));
     }
 
     @Contract(pure = true)
@@ -151,24 +195,47 @@ public class EditorPane extends SplitPane {
         return saved.get();
     }
 
+    // While a load runs the editor only holds a placeholder or part of the file, saving it could overwrite the file being read
     public boolean save() throws IOException {
-        return fileFactory.markdown().save(file, getContent(), saved);
+        if(refuseWhileLoading())
+            return false;
+        String content = getContent();
+        return fileFactory.markdown().save(file, content, getSaveEncoding(content), saved);
     }
 
     public boolean saveAs() throws IOException {
-        return fileFactory.markdown().saveAs(file, getContent(), saved);
+        if(refuseWhileLoading())
+            return false;
+        String content = getContent();
+        return fileFactory.markdown().saveAs(file, content, getSaveEncoding(content), saved);
+    }
+
+    // Text the charset can not hold, like an emoji typed into a windows-1252 file, switches the document over to UTF-8 for good
+    private TextEncoding getSaveEncoding(String content) {
+        if(!encoding.canEncode(content))
+            encoding = TextEncoding.UTF_8;
+        return encoding;
+    }
+
+    private boolean refuseWhileLoading() {
+        if(!isLoading())
+            return false;
+        editorToolBar.setActionText("Not saving \'" + file.getName() + "\' while it is still loading");
+        return true;
     }
 
     public boolean saveHtml(boolean style) throws IOException {
-        return fileFactory.html().save(file, style ? currentHtmlWithStyle : currentHtml, style, dict);
+        if(style)
+            return fileFactory.html().save(file, getCurrentHtmlWithStyle(), true, dict);
+        return fileFactory.html().save(file, markdownParser, getParsedDocument(), dict);
     }
 
     public boolean saveDocx() throws Docx4JException, JAXBException {
-        return fileFactory.office().saveDocx(getContent(), file, markdownParser, dict);
+        return fileFactory.office().saveDocx(getParsedDocument(), file, markdownParser, dict);
     }
 
     public boolean savePdf(boolean style) throws IOException{
-        return fileFactory.pdf().save(file, markdownParser, style ? currentHtmlWithStyle : currentHtml, style, dict);
+        return fileFactory.pdf().save(file, markdownParser, style ? getCurrentHtmlWithStyle() : markdownParser.convertToHTML(getParsedDocument()), style, dict);
     }
 
     public boolean saveJira() throws IOException{
@@ -180,11 +247,16 @@ public class EditorPane extends SplitPane {
     }
 
     public boolean saveText() throws IOException{
-        return fileFactory.plainText().save(file, markdownParser, getContent(), dict);
+        return fileFactory.plainText().save(file, markdownParser, getParsedDocument(), dict);
     }
 
     public boolean saveConfluenceMarkup() throws IOException{
-        return fileFactory.confluence().save(file, markdownParser, getContent(), dict);
+        return fileFactory.confluence().save(file, markdownParser, getParsedDocument(), dict);
+    }
+
+    // The parsed current text, shared with the preview until the next edit
+    public ParsedDocument getParsedDocument() {
+        return documentCache.getDocument(getContent(), documentCache.getVersion());
     }
 
     public void setView(EditorView view) {
@@ -205,7 +277,8 @@ public class EditorPane extends SplitPane {
     }
 
     public boolean exit() {
-        if(!isSaved()){
+        // A tab whose load has not finished has nothing of its own to save, dispose cancels the load
+        if(!isLoading() && !isSaved()){
             Optional<ButtonType> save = dialogFactory.buildYesNoDialog(file.getPath(),
                     dict.DIALOG_FILE_NOT_SAVED_TITLE,
                     dict.DIALOG_FILE_NOT_SAVED_CONTENT
@@ -237,15 +310,139 @@ public class EditorPane extends SplitPane {
                     return false;
             }
         }
+        dispose();
+        return true;
+    }
+
+    // Stops everything that would keep working on the pane once its tab is gone, only the first call does anything
+    public void dispose() {
+        if(disposed)
+            return;
+        disposed = true;
+        contentLoader.cancel();
+        liveSpellcheckSubscription.unsubscribe();
+        if(editorHighlightSubscription != null)
+            editorHighlightSubscription.unsubscribe();
+        if(covertTask != null)
+            covertTask.stop();
+        backgroundHighlightTask.stop();
         getEditor().caretPositionProperty().removeListener(caretPositionListener);
         getEditor().caretColumnProperty().removeListener(caretPositionListener);
-        return true;
     }
 
     public void setContent(String content){
         editor.replaceText(0, editor.getText().length(), content);
-        webEngine.loadContent(markdownParser.convertToHTML(content));
-        highlighter.compute(getContent(), editor);
+        renderWebView();
+        highlightContent();
+    }
+
+    private void highlightContent() {
+        highlight(highlighter.snapshotAll(editor));
+    }
+
+    /*
+     Lexes a snapshot of the text off the FX thread. The result is dropped if the text
+     changed in the meantime, the change schedules a newer highlight of its own. Large
+     documents get the visible paragraphs styled first and the rest in the background.
+    */
+    private void highlight(Callable<SyntaxHighlighter.Highlighting> job) {
+        if(job == null)
+            return;
+        highlightQueue.submit(job, result -> {
+            SyntaxHighlighter.Highlighting highlighting = result.getRendered();
+            if(!highlighter.install(highlighting))
+                return;
+
+            if(!highlighting.isFull()) {
+                highlighter.apply(editor, highlighting.getFromParagraph(), highlighting.getToParagraph());
+            }else if(!Settings.EDITOR_VIEWPORT_HIGHLIGHTING || editor.getParagraphs().size() < VIEWPORT_HIGHLIGHTING_MIN_PARAGRAPHS) {
+                highlighter.applyPending(editor, 0, editor.getParagraphs().size());
+            }else{
+                int[] visible = getVisibleParagraphs();
+                highlighter.applyPending(editor, visible[0], visible[1]);
+                backgroundHighlightTask.play();
+            }
+            if(!highlighting.isComplete())
+                highlight(highlighter.snapshotChanges(editor));
+            if(!isLoading())
+                editorToolBar.setActionText("Computed highlighting of " + highlighting.getParagraphs() + " paragraph(s) in " + result.getRenderTime() + "ms");
+        });
+    }
+
+    private void createBackgroundHighlightTask() {
+        backgroundHighlightTask = new Timeline(new KeyFrame(javafx.util.Duration.millis(20), event -> {
+            int[] visible = getVisibleParagraphs();
+            highlighter.applyPending(editor, visible[0], visible[1]);
+            if(!highlighter.applyNextSlice(editor, visible[0], BACKGROUND_SLICE_PARAGRAPHS))
+                backgroundHighlightTask.stop();
+        }));
+        backgroundHighlightTask.setCycleCount(Animation.INDEFINITE);
+
+        // Scrolling to paragraphs that are still pending styles them straight away
+        editor.estimatedScrollYProperty().addListener((obs, oldValue, newValue) -> {
+            if(highlighter.hasPending()) {
+                int[] visible = getVisibleParagraphs();
+                highlighter.applyPending(editor, visible[0], visible[1]);
+            }
+        });
+    }
+
+    /*
+     Paragraphs [first, last) that are on screen, estimated from the scroll position and
+     the average paragraph height with some padding on both sides.
+    */
+    private int[] getVisibleParagraphs() {
+        int paragraphs = editor.getParagraphs().size();
+        Double totalHeight = editor.totalHeightEstimateProperty().getValue();
+        Double scrollY = editor.estimatedScrollYProperty().getValue();
+        if(totalHeight == null || scrollY == null || totalHeight <= 0 || editor.getHeight() <= 0)
+            return new int[]{0, Math.min(paragraphs, 2 * VIEWPORT_PADDING_PARAGRAPHS)};
+
+        double paragraphHeight = totalHeight / paragraphs;
+        int first = (int) (scrollY / paragraphHeight);
+        int last = first + (int) Math.ceil(editor.getHeight() / paragraphHeight) + 1;
+        return new int[]{
+                Math.max(0, first - VIEWPORT_PADDING_PARAGRAPHS),
+                Math.min(paragraphs, last + VIEWPORT_PADDING_PARAGRAPHS)
+        };
+    }
+
+    // Streams the body of the url over the text from the offset to the end, see ContentLoader
+    public void loadUrl(String url, int from, Consumer<IOException> onFailed) {
+        contentLoader.loadUrl(url, from, onFailed);
+    }
+
+    // Loading over the whole document takes on the encoding of the file, an import keeps the encoding of the document
+    public void loadFile(File file, int from, Consumer<IOException> onFailed) {
+        contentLoader.loadFile(file, from, encoding -> {
+            if(from == 0)
+                this.encoding = encoding;
+        }, onFailed);
+    }
+
+    public boolean isLoading() {
+        return contentLoader.isLoading();
+    }
+
+    // The tab tells the pane whether it is selected, only the selected pane's load owns the toolbar
+    public void setShowing(BooleanSupplier showing) {
+        this.showing = showing;
+    }
+
+    public void showLoadStatus() {
+        contentLoader.showStatus();
+    }
+
+    public void hideLoadStatus() {
+        contentLoader.hideStatus();
+    }
+
+    // The chunks of a load skip the debounced preview, highlight and spellcheck, the whole text gets one pass at the end
+    private void contentLoaded() {
+        renderWebView();
+        highlightContent();
+        if(Settings.EDITOR_LIVE_SPELLCHECK)
+            spellcheckContent(Spellcheck.Tier.SPELLING);
     }
 
     public String getContent(){
@@ -258,6 +455,7 @@ public class EditorPane extends SplitPane {
         }else {
             prettifyCode.set(true);
         }
+        webViewPatcher.reset(); // The prettify script is only added on a full load
         this.refreshWebView();
         editorToolBar.setActionText("Enabled Code Prettify for current document \'" + file.getName() + "\'");
     }
@@ -266,25 +464,119 @@ public class EditorPane extends SplitPane {
         covertTask.playFrom(javafx.util.Duration.seconds(Settings.VIEW_REFRESH_RATE));
     }
 
-    public boolean spellcheckDocument() {
+    // Runs in the background, onChecked gets whether the check succeeded on the FX thread
+    public void spellcheckDocument(Consumer<Boolean> onChecked) {
         editorToolBar.setActionText("Spell checking document \'" + file.getName() + "\'");
-        Platform.runLater(() -> {
-            try {
-                timer.start();
-                List<RuleMatch> matches = spellcheck.check(getContent());
-                MarkdownHighligher.computeSpellcheckHighlighting(matches, this);
-                editorToolBar.setActionText("Found " + matches.size() + " misspellings in the document \'" + file.getName() + "\' (" + timer.end() + "ms)");
-            } catch (IOException e) {
-                dialogFactory.buildExceptionDialogBox(
-                        dict.DIALOG_EXCEPTION_TITLE,
-                        dict.DIALOG_EXCEPTION_SPELLCHECK_CONTENT,
-                        e.getMessage(),
-                        e
-                );
+        spellcheckContent(Spellcheck.Tier.SPELLING, onChecked);
+    }
+
+    private void spellcheckContent(Spellcheck.Tier tier) {
+        spellcheckContent(tier, checked -> {});
+    }
+
+    /*
+     Checks a snapshot of the text in the background, only the blocks that changed since the
+     last check go to LanguageTool. The misspellings are dropped if the text changed in the
+     meantime, the live spellcheck or the next click checks it again. With grammar checking
+     turned on the spelling results are shown first and the slower grammar pass follows.
+     Only the first of a run of failed checks shows the error, live checks retry every edit.
+    */
+    private void spellcheckContent(Spellcheck.Tier tier, Consumer<Boolean> onChecked) {
+        String text = getContent();
+        long version = highlighter.getVersion();
+        spellcheckQueue.submit(() -> spellcheck.checkChanges(text, tier), result -> {
+            spellcheckFailed = false;
+            onChecked.accept(true);
+            if(highlighter.getVersion() != version)
+                return;
+            Spellcheck.Result spellcheckResult = result.getRendered();
+            misspellingSuggestions.clear();
+            spellcheckResult.getMisspellings().forEach(misspelling -> misspellingSuggestions.put(
+                    text.substring(misspelling.getFromPos(), misspelling.getToPos()), misspelling.getMatch().getSuggestions()));
+            highlighter.setLayer(editor, LayeredStyles.Layer.SPELLCHECK, spellcheckResult.getMisspellings().stream()
+                    .map(misspelling -> new StyleLayer.Span(misspelling.getFromPos(), misspelling.getToPos(), MISSPELLED))
+                    .collect(Collectors.toList()));
+            if(!isLoading())
+                editorToolBar.setActionText("Found " + spellcheckResult.getMisspellings().size() +
+                        (tier == Spellcheck.Tier.GRAMMAR ? " spelling and grammar issues" : " misspellings") + " in the document \'" + file.getName() + "\'" +
+                        " (checked " + spellcheckResult.getCheckedBlocks() + " of " + spellcheckResult.getBlocks() + " paragraphs in " + result.getRenderTime() + "ms)");
+            if(tier == Spellcheck.Tier.SPELLING && Settings.EDITOR_GRAMMAR_CHECK)
+                spellcheckContent(Spellcheck.Tier.GRAMMAR);
+        }, e -> {
+            onChecked.accept(false);
+            if(spellcheckFailed)
+                return;
+            spellcheckFailed = true;
+            dialogFactory.buildExceptionDialogBox(
+                    dict.DIALOG_EXCEPTION_TITLE,
+                    dict.DIALOG_EXCEPTION_SPELLCHECK_CONTENT,
+                    e.getMessage(),
+                    e
+            ).showAndWait();
+        });
+    }
+
+    private void createLiveSpellcheckSubscription() {
+        liveSpellcheckSubscription = editor.plainTextChanges()
+                .filter(ch -> !ch.getInserted().equals(ch.getRemoved()) && !isLoading())
+                .successionEnds(Duration.ofMillis(LIVE_SPELLCHECK_DELAY_MILLIS))
+                .subscribe(change -> {
+                    if(Settings.EDITOR_LIVE_SPELLCHECK)
+                        spellcheckContent(Spellcheck.Tier.SPELLING);
+                });
+    }
+
+    /*
+     Right clicking a misspelled word offers its suggestions and adding it to the dictionary
+     of the workspace, anywhere else the menu stays hidden. Grammar matches that span more
+     than one word only get their suggestions, the dictionary only knows single words.
+    */
+    private void createSpellcheckContextMenu() {
+        ContextMenu contextMenu = new ContextMenu();
+        editor.setOnContextMenuRequested(event -> {
+            contextMenu.hide();
+            int offset = editor.hit(event.getX(), event.getY()).getInsertionIndex();
+            StyleLayer.Span span = highlighter.getLayer(LayeredStyles.Layer.SPELLCHECK).spanAt(offset);
+            if(span == null)
+                return;
+
+            int start = span.getStart(), end = span.getEnd();
+            String word = editor.getText(start, end);
+            contextMenu.getItems().clear();
+            List<String> suggestions = misspellingSuggestions.getOrDefault(word, Collections.emptyList());
+            for(String suggestion : suggestions) {
+                MenuItem item = new MenuItem(suggestion);
+                item.setOnAction(e -> editor.replaceText(start, end, suggestion));
+                contextMenu.getItems().add(item);
+            }
+            if(suggestions.isEmpty()) {
+                MenuItem item = new MenuItem(dict.CONTEXT_MENU_EDITOR_NO_SUGGESTIONS_ITEM);
+                item.setDisable(true);
+                contextMenu.getItems().add(item);
+            }
+            if(UserDictionary.isWord(word)) {
+                MenuItem addItem = new MenuItem(dict.CONTEXT_MENU_EDITOR_ADD_TO_DICTIONARY_ITEM);
+                addItem.setOnAction(e -> addToDictionary(word));
+                contextMenu.getItems().addAll(new SeparatorMenuItem(), addItem);
             }
+            contextMenu.show(editor, event.getScreenX(), event.getScreenY());
+            event.consume();
         });
+    }
 
-        return true;
+    private void addToDictionary(String word) {
+        try {
+            spellcheck.getDictionary().add(word);
+            editorToolBar.setActionText("Added \'" + word + "\' to the dictionary");
+            spellcheckContent(Spellcheck.Tier.SPELLING);
+        } catch (IOException e) {
+            dialogFactory.buildExceptionDialogBox(
+                    dict.DIALOG_EXCEPTION_TITLE,
+                    dict.DIALOG_EXCEPTION_ADD_TO_DICTIONARY_CONTENT,
+                    e.getMessage(),
+                    e
+            ).showAndWait();
+        }
     }
 
     public HashMap<String, List<String>> getMisspellingSuggestions() {
@@ -317,12 +609,28 @@ public class EditorPane extends SplitPane {
                 styleNode.appendChild(styleContent);
                 head.appendChild(styleNode);
                 currentHtmlWithStyle = webEngine.executeScript("document.documentElement.innerHTML").toString();
+                currentHtmlWithStyleStale = false;
+                webViewPatcher.loaded();
             }
         });
     }
 
+    private String getCurrentHtmlWithStyle() {
+        if(currentHtmlWithStyleStale) {
+            currentHtmlWithStyle = webEngine.executeScript("document.documentElement.innerHTML").toString();
+            currentHtmlWithStyleStale = false;
+        }
+        return currentHtmlWithStyle;
+    }
+
     private void setSyncViews() {
+        editor.plainTextChanges().subscribe(change -> {
+            documentCache.invalidate();
+            incrementalParser.textChanged(change.getPosition(), change.getRemoved().length(), change.getInserted().length());
+        });
         editor.textProperty().addListener((obs, oldValue, newValue) -> {
+            if(isLoading())
+                return;
             if(covertTask == null || covertTask.getStatus().equals(Animation.Status.STOPPED)){
                 createSyncTimer(Settings.VIEW_REFRESH_RATE);
                 covertTask.play();
@@ -339,28 +647,57 @@ public class EditorPane extends SplitPane {
 
     public void createSyncTimer(int duration) {
         covertTask = new Timeline(new KeyFrame(javafx.util.Duration.seconds(duration), (event2) -> {
-            timer.start();
-            String html = markdownParser.convertToHTML(editor.getText());
-            webEngine.loadContent(html);
-            currentHtml = html;
+            renderWebView();
             covertTask.stop();
-            editorToolBar.setActionText("Refreshed view successfully in " + timer.end() + "ms");
         }));
     }
 
+    private void renderWebView() {
+        // Only immutable snapshots cross over to the render thread
+        final String markdown = editor.getText();
+        final long changeCount = incrementalParser.getChangeCount();
+        final long version = documentCache.getVersion();
+        final boolean incremental = Settings.INCREMENTAL_VIEW_RENDERING;
+        renderQueue.submit(() -> {
+            if(incremental)
+                return incrementalParser.convertToHTMLBlocks(markdown, changeCount);
+            incrementalParser.reset(changeCount);
+            return Collections.singletonList(markdownParser.convertToHTML(documentCache.getDocument(markdown, version)));
+        }, result -> {
+            List<String> blocks = result.getRendered();
+            currentHtml = String.join("", blocks);
+            if(!incremental) {
+                webViewPatcher.reset();
+                webEngine.loadContent(currentHtml);
+            }else if(webViewPatcher.isReady()) {
+                // Patch only the changed blocks, keeps the scroll position and skips the style injection
+                webViewPatcher.patch(blocks);
+                currentHtmlWithStyleStale = true;
+            }else{
+                webViewPatcher.load(blocks);
+            }
+            if(!isLoading())
+                editorToolBar.setActionText("Refreshed view successfully in " + result.getRenderTime() + "ms" +
+                        " (render queue: " + result.getQueueDepth() + ", dropped: " + result.getDropped() + ")");
+        });
+    }
+
     public void createEditorHighlightSubscription(int duration) {
         if(editorHighlightSubscription != null)
             editorHighlightSubscription.unsubscribe();
 
-        editorHighlightSubscription = editor.plainTextChanges()
+        // Every change is recorded so the debounced highlight only restyles the paragraphs that were edited
+        Subscription changeSubscription = editor.plainTextChanges()
                 .filter(ch -> !ch.getInserted().equals(ch.getRemoved()))
+                .subscribe(change -> highlighter.textChanged(editor, change));
+
+        editorHighlightSubscription = changeSubscription.and(editor.plainTextChanges()
+                .filter(ch -> !ch.getInserted().equals(ch.getRemoved()) && !isLoading())
                 .successionEnds(Duration.ofMillis(duration))
                 .subscribe(change -> {
                     saved.set(false);
-                    timer.start();
-                    highlighter.compute(getContent(), editor);
-                    editorToolBar.setActionText("Computed highlighting in " + timer.end() + "ms");
-                });
+                    highlight(highlighter.snapshotChanges(editor));
+                }));
     }
 
 }
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2017  TextMd
+ *
+ * This file is part of TextMd.
+ *
+ * TextMd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.desive.nodes.editor;
+
+import javafx.application.Platform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/*
+ Renders the preview (or the highlighting) of one document off the FX thread. Renders of
+ the same queue run one at a time and only the latest request is kept, a request that
+ gets superseded before it starts is dropped and a finished render that is already out
+ of date is never handed back to the FX thread. Documents in different tabs render in
+ parallel.
+*/
+public class PreviewRenderQueue<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(PreviewRenderQueue.class);
+
+    private static final ExecutorService renderExecutor = newExecutor("preview-render", Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+
+    private final String name;
+    private final ExecutorService executor;
+    private final Object lock = new Object();
+    private Request<T> pending;
+    private boolean running = false;
+    private long latestSequence = 0;
+    private int queueDepth = 0, dropped = 0;
+
+    // The name tells the jobs of the queue apart in the log
+    public PreviewRenderQueue(String name) {
+        this(name, renderExecutor);
+    }
+
+    // Jobs that block for long, like a spellcheck waiting on LanguageTool, get their own threads so renders never wait behind them
+    public PreviewRenderQueue(String name, ExecutorService executor) {
+        this.name = name;
+        this.executor = executor;
+    }
+
+    public static ExecutorService newExecutor(String name, int threads) {
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void submit(Callable<T> render, Consumer<Result<T>> onRendered) {
+        submit(render, onRendered, null);
+    }
+
+    // onFailed gets the exception of a render that is still the latest one on the FX thread, failures are logged either way
+    public void submit(Callable<T> render, Consumer<Result<T>> onRendered, Consumer<Exception> onFailed) {
+        synchronized (lock) {
+            if(pending != null) {
+                dropped++;
+            }else{
+                queueDepth++;
+            }
+            pending = new Request<>(++latestSequence, render, onRendered, onFailed);
+            if(!running) {
+                running = true;
+                executor.execute(this::drain);
+            }
+        }
+    }
+
+    private void drain() {
+        while(true) {
+            Request<T> request;
+            synchronized (lock) {
+                request = pending;
+                pending = null;
+                if(request == null) {
+                    running = false;
+                    return;
+                }
+                queueDepth--;
+            }
+
+            long start = System.nanoTime();
+            T rendered;
+            try {
+                rendered = request.render.call();
+            } catch (Exception e) {
+                logger.error("The " + name + " job failed", e);
+                if(request.onFailed != null) {
+                    Platform.runLater(() -> {
+                        synchronized (lock) {
+                            if(request.sequence != latestSequence)
+                                return;
+                        }
+                        request.onFailed.accept(e);
+                    });
+                }
+                continue;
+            }
+            long renderTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            Platform.runLater(() -> {
+                int droppedRenders, depth;
+                synchronized (lock) {
+                    if(request.sequence != latestSequence) {
+                        dropped++;
+                        return; // A newer render is on its way
+                    }
+                    droppedRenders = dropped;
+                    depth = queueDepth;
+                    dropped = 0;
+                }
+                request.onRendered.accept(new Result<>(rendered, renderTime, depth, droppedRenders));
+            });
+        }
+    }
+
+    private static class Request<T> {
+
+        final long sequence;
+        final Callable<T> render;
+        final Consumer<Result<T>> onRendered;
+        final Consumer<Exception> onFailed;
+
+        Request(long sequence, Callable<T> render, Consumer<Result<T>> onRendered, Consumer<Exception> onFailed) {
+            this.sequence = sequence;
+            this.render = render;
+            this.onRendered = onRendered;
+            this.onFailed = onFailed;
+        }
+
+    }
+
+    public static class Result<T> {
+
+        private final T rendered;
+        private final long renderTime;
+        private final int queueDepth, dropped;
+
+        Result(T rendered, long renderTime, int queueDepth, int dropped) {
+            this.rendered = rendered;
+            this.renderTime = renderTime;
+            this.queueDepth = queueDepth;
+            this.dropped = dropped;
+        }
+
+        public T getRendered() {
+            return rendered;
+        }
+
+        public long getRenderTime() {
+            return renderTime;
+        }
+
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public int getDropped() {
+            return dropped;
+        }
+
+    }
+
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2017  TextMd
+ *
+ * This file is part of TextMd.
+ *
+ * TextMd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.desive.nodes.editor;
+
+import com.google.common.collect.Lists;
+import javafx.scene.web.WebEngine;
+import netscape.javascript.JSObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.List;
+
+/*
+ Updates the preview by replacing only the rendered blocks that changed since the last
+ update instead of reloading the page, so WebKit lays out less and the scroll position
+ stays put. Only pages loaded through load() can be patched.
+*/
+public class WebViewPatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebViewPatcher.class);
+
+    private static final String EMPTY_PAGE = "<html><head></head><body></body></html>";
+
+    // Keeps the top-level nodes of every block by id so a block can be removed without searching the DOM
+    private static final String PATCH_SCRIPT =
+            "window.textmdBlocks = {};" +
+            "window.textmdPatch = function(removeIds, beforeId, insertIds, insertHtml) {" +
+            "  for (var i = 0; i < removeIds.length; i++) {" +
+            "    var nodes = textmdBlocks[removeIds[i]] || [];" +
+            "    for (var j = 0; j < nodes.length; j++) nodes[j].parentNode.removeChild(nodes[j]);" +
+            "    delete textmdBlocks[removeIds[i]];" +
+            "  }" +
+            "  var before = beforeId >= 0 && textmdBlocks[beforeId] ? textmdBlocks[beforeId][0] : null;" +
+            "  var container = document.createElement('div');" +
+            "  for (var i = 0; i < insertIds.length; i++) {" +
+            "    var nodes = [];" +
+            "    container.innerHTML = insertHtml[i];" +
+            "    while (container.firstChild) {" +
+            "      var node = container.firstChild;" +
+            "      if (node.nodeType === 3) {" +
+            "        if (!/\\S/.test(node.nodeValue)) { container.removeChild(node); continue; }" +
+            "        var span = document.createElement('span');" +
+            "        span.appendChild(node);" +
+            "        node = span;" +
+            "      }" +
+            "      document.body.insertBefore(node, before);" +
+            "      nodes.push(node);" +
+            "    }" +
+            "    textmdBlocks[insertIds[i]] = nodes;" +
+            "  }" +
+            "  if (window.PR) PR.prettyPrint();" +
+            "};";
+
+    private WebEngine webEngine;
+
+    private List<String> blocks = Collections.emptyList(), pending = Collections.emptyList();
+    private List<Integer> blockIds = Lists.newArrayList();
+    private int nextBlockId = 0;
+    private boolean loading = false, ready = false;
+
+    public WebViewPatcher(WebEngine webEngine) {
+        this.webEngine = webEngine;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Loads an empty page, the blocks are added once the page has loaded
+    public void load(List<String> blocks) {
+        pending = blocks;
+        loading = true;
+        ready = false;
+        webEngine.loadContent(EMPTY_PAGE);
+    }
+
+    // Called once the page has loaded and the styles have been injected
+    public void loaded() {
+        if(!loading) {
+            ready = false;
+            return;
+        }
+        loading = false;
+        webEngine.executeScript(PATCH_SCRIPT);
+        blocks = Collections.emptyList();
+        blockIds.clear();
+        ready = true;
+        patch(pending);
+        pending = Collections.emptyList();
+    }
+
+    // Forget the current page, the next update has to load a new one
+    public void reset() {
+        loading = false;
+        ready = false;
+        blocks = Collections.emptyList();
+        blockIds.clear();
+    }
+
+    public int patch(List<String> updated) {
+        int prefix = 0, suffix = 0;
+        int max = Math.min(blocks.size(), updated.size());
+        while(prefix < max && blocks.get(prefix).equals(updated.get(prefix)))
+            prefix++;
+        while(suffix < max - prefix
+                && blocks.get(blocks.size() - 1 - suffix).equals(updated.get(updated.size() - 1 - suffix)))
+            suffix++;
+
+        int removeEnd = blocks.size() - suffix, insertEnd = updated.size() - suffix;
+        if(prefix == removeEnd && prefix == insertEnd)
+            return 0;
+
+        JSObject removeIds = newArray(), insertIds = newArray(), insertHtml = newArray();
+        List<Integer> removed = blockIds.subList(prefix, removeEnd);
+        int removedCount = removed.size();
+        for(int i = 0; i < removedCount; i++)
+            removeIds.setSlot(i, removed.get(i));
+        removed.clear();
+
+        int beforeId = -1;
+        for(int i = prefix; i < blockIds.size() && beforeId == -1; i++) {
+            if(!updated.get(insertEnd + i - prefix).trim().isEmpty())
+                beforeId = blockIds.get(i);
+        }
+
+        List<Integer> inserted = Lists.newArrayList();
+        for(int i = prefix; i < insertEnd; i++) {
+            int id = nextBlockId++;
+            inserted.add(id);
+            insertIds.setSlot(i - prefix, id);
+            insertHtml.setSlot(i - prefix, updated.get(i));
+        }
+        blockIds.addAll(prefix, inserted);
+        blocks = updated;
+
+        ((JSObject) webEngine.executeScript("window")).call("textmdPatch", removeIds, beforeId, insertIds, insertHtml);
+        logger.debug("Patched {} block(s) into the view, replacing {}", inserted.size(), removedCount);
+        return inserted.size();
+    }
+
+    private JSObject newArray() {
+        return (JSObject) webEngine.executeScript("[]");
+    }
+
+}
@@ -20,7 +20,7 @@
 package com.desive.nodes.editor.tabs;
 
 import com.desive.nodes.editor.EditorPane;
-import com.desive.utilities.Utils;
+import com.desive.utilities.constants.Colors;
 import javafx.geometry.NodeOrientation;
 import javafx.scene.control.Tab;
 import javafx.scene.layout.StackPane;
@@ -40,6 +40,7 @@ public class EditorTab extends Tab {
     public EditorTab(EditorPane editorPane) {
 
         this.editorPane = editorPane;
+        this.editorPane.setShowing(this::isSelected);
 
         this.setOnCloseRequest(e -> {
             if(getEditorPane().exit()) {
@@ -60,7 +61,7 @@ public class EditorTab extends Tab {
         }else{
             text = new Text(filePath);
         }
-        text.setFill(Utils.getDefaultTextColor());
+        text.setFill(Colors.DEFAULT_TEXT);
         this.setGraphic(new StackPane(text));
         this.getGraphic().setNodeOrientation(NodeOrientation.RIGHT_TO_LEFT);
     }
@@ -42,7 +42,7 @@ public class EditorToolBar extends BorderPane{
         setPrefHeight(20.0);
         getStyleClass().add("toolbar");
 
-        actionTextPane = new ActionTextPane();
+        actionTextPane = new ActionTextPane(dictionary.TOOLBAR_EDITOR_CANCEL_LINK);
 
         rightBox.getChildren().addAll(
                 new CaretPositionPane(),
@@ -58,4 +58,12 @@ public class EditorToolBar extends BorderPane{
         actionTextPane.setActionText(text);
     }
 
+    public void setProgressText(String text) {
+        actionTextPane.setProgressText(text);
+    }
+
+    public void setCancelAction(Runnable cancelAction) {
+        actionTextPane.setCancelAction(cancelAction);
+    }
+
 }
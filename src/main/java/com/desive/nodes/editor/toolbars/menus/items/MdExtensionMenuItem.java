@@ -26,8 +26,6 @@ import javafx.scene.control.CheckMenuItem;
 import javafx.scene.control.Label;
 import javafx.scene.control.Tooltip;
 
-import java.util.List;
-
 /*
  Created by Jack DeSive on 11/5/2017 at 10:54 PM
 */
@@ -50,13 +48,11 @@ public abstract class MdExtensionMenuItem extends CheckMenuItem {
     }
 
     protected  void addExtension(final MarkdownParser markdownParser, Extension extension) {
-        List<Extension> extensions = markdownParser.getExtensions();
-        if(isSelected() && !extensions.contains(extension)) {
-            extensions.add(extension);
-        }else if(extensions.contains(extension)) {
-            extensions.remove(extension);
+        if(isSelected()) {
+            markdownParser.addExtension(extension);
+        }else{
+            markdownParser.removeExtension(extension);
         }
-        markdownParser.setExtensions(extensions);
     }
 
 }
@@ -20,6 +20,7 @@
 package com.desive.nodes.editor.toolbars.menus.items.file.imports;
 
 import com.desive.nodes.TabFactory;
+import com.desive.nodes.editor.EditorPane;
 import com.desive.nodes.editor.tabs.EditorTab;
 import com.desive.nodes.editor.toolbars.menus.items.MdOpenPageMenuItem;
 import com.desive.stages.dialogs.DialogFactory;
@@ -30,8 +31,7 @@ import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
 import java.io.File;
-import java.io.IOException;
-import java.util.Scanner;
+import java.io.InterruptedIOException;
 
 /*
  Created by Jack DeSive on 11/1/2017 at 9:54 PM
@@ -50,17 +50,23 @@ public class EditorImportFileItem extends MdOpenPageMenuItem {
         fileChooser.getExtensionFilters().add(FileExtensionFilters.MARKDOWN);
         File file = fileChooser.showOpenDialog(stage);
         if(file != null){
-            try {
-                EditorTab tab = ((EditorTab)tabFactory.getSelectedTab());
-                tab.getEditorPane().setContent(tab.getEditorPane().getContent() + "\n" + new Scanner(file).useDelimiter("\\Z").next());
-            } catch (IOException e1) {
+            EditorPane editorPane = ((EditorTab)tabFactory.getSelectedTab()).getEditorPane();
+            if(editorPane.isLoading())
+                return;
+            // The file is streamed in after a new line at the end of the document
+            editorPane.getEditor().appendText("\n");
+            int from = editorPane.getEditor().getLength();
+            editorPane.loadFile(file, from, e1 -> {
+                editorPane.getEditor().deleteText(from - 1, from);
+                if(e1 instanceof InterruptedIOException)
+                    return;
                 dialogFactory.buildExceptionDialogBox(
                         dictionary.DIALOG_EXCEPTION_TITLE,
                         dictionary.DIALOG_EXCEPTION_IMPORT_CONTENT,
                         e1.getMessage(),
                         e1
                 ).showAndWait();
-            }
+            });
         }
     }
 
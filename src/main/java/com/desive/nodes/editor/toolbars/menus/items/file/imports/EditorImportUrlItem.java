@@ -20,15 +20,15 @@
 package com.desive.nodes.editor.toolbars.menus.items.file.imports;
 
 import com.desive.nodes.TabFactory;
+import com.desive.nodes.editor.EditorPane;
 import com.desive.nodes.editor.tabs.EditorTab;
 import com.desive.nodes.editor.toolbars.menus.items.MdPageMenuItem;
 import com.desive.stages.dialogs.DialogFactory;
-import com.desive.utilities.Http;
 import com.desive.utilities.constants.Dictionary;
 import javafx.scene.control.TextInputDialog;
 import javafx.scene.input.KeyCombination;
 
-import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.Optional;
 
 /*
@@ -50,17 +50,23 @@ public class EditorImportUrlItem extends MdPageMenuItem {
         );
         Optional<String> result = input.showAndWait();
         result.ifPresent(url -> {
-            try {
-                EditorTab tab = ((EditorTab)tabFactory.getSelectedTab());
-                tab.getEditorPane().setContent(tab.getEditorPane().getContent() + "\n" + Http.request(url + "", null, null, null, "GET"));
-            } catch (IOException e1) {
+            EditorPane editorPane = ((EditorTab)tabFactory.getSelectedTab()).getEditorPane();
+            if(editorPane.isLoading())
+                return;
+            // The markdown is streamed in after a new line at the end of the document
+            editorPane.getEditor().appendText("\n");
+            int from = editorPane.getEditor().getLength();
+            editorPane.loadUrl(url, from, e1 -> {
+                editorPane.getEditor().deleteText(from - 1, from);
+                if(e1 instanceof InterruptedIOException)
+                    return;
                 dialogFactory.buildExceptionDialogBox(
                         dictionary.DIALOG_EXCEPTION_TITLE,
                         dictionary.DIALOG_EXCEPTION_IMPORT_CONTENT,
                         e1.getMessage(),
                         e1
                 ).showAndWait();
-            }
+            });
         });
     }
 
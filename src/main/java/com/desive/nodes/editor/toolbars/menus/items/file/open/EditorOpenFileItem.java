@@ -29,7 +29,7 @@ import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.InterruptedIOException;
 
 /*
  Created by Jack DeSive on 11/1/2017 at 9:54 PM
@@ -48,16 +48,16 @@ public class EditorOpenFileItem extends MdOpenPageMenuItem {
         fileChooser.getExtensionFilters().add(FileExtensionFilters.MARKDOWN);
         File file = fileChooser.showOpenDialog(stage);
         if(file != null){
-            try {
-                tabFactory.createAndAddNewEditorTab(file);
-            } catch (FileNotFoundException e1) {
+            tabFactory.createAndAddNewEditorTab(file, e1 -> {
+                if(e1 instanceof InterruptedIOException)
+                    return;
                 dialogFactory.buildExceptionDialogBox(
                         dictionary.DIALOG_EXCEPTION_TITLE,
                         dictionary.DIALOG_EXCEPTION_OPENING_MARKDOWN_CONTENT,
                         e1.getMessage(),
                         e1
                 ).showAndWait();
-            }
+            });
         }
     }
 
@@ -20,9 +20,9 @@
 package com.desive.nodes.editor.toolbars.menus.items.file.open;
 
 import com.desive.nodes.TabFactory;
+import com.desive.nodes.editor.tabs.EditorTab;
 import com.desive.nodes.editor.toolbars.menus.items.MdOpenPageMenuItem;
 import com.desive.stages.dialogs.DialogFactory;
-import com.desive.utilities.Http;
 import com.desive.utilities.Utils;
 import com.desive.utilities.constants.Dictionary;
 import javafx.scene.control.TextInputDialog;
@@ -30,7 +30,7 @@ import javafx.scene.input.KeyCombination;
 import javafx.stage.Stage;
 
 import java.io.File;
-import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.Optional;
 
 /*
@@ -52,19 +52,22 @@ public class EditorOpenUrlItem extends MdOpenPageMenuItem {
         );
         Optional<String> result = input.showAndWait();
         result.ifPresent(url -> {
-            try {
-                tabFactory.createAndAddNewEditorTab(
-                        new File(Utils.getDefaultFileName()),
-                        Http.request(url + "", null, null, null, "GET")
-                );
-            } catch (IOException e1) {
+            // The tab opens right away, the placeholder is replaced as the markdown arrives
+            EditorTab tab = tabFactory.createAndAddNewEditorTab(
+                    new File(Utils.getDefaultFileName()),
+                    dictionary.EDITOR_LOADING_PLACEHOLDER
+            );
+            tab.getEditorPane().loadUrl(url, 0, e1 -> {
+                tabFactory.closeTab(tab);
+                if(e1 instanceof InterruptedIOException)
+                    return;
                 dialogFactory.buildExceptionDialogBox(
                         dictionary.DIALOG_EXCEPTION_TITLE,
                         dictionary.DIALOG_EXCEPTION_OPENING_MARKDOWN_URL_CONTENT,
                         e1.getMessage(),
                         e1
                 ).showAndWait();
-            }
+            });
         });
     }
 
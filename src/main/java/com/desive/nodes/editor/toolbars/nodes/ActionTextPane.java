@@ -19,13 +19,15 @@
 
 package com.desive.nodes.editor.toolbars.nodes;
 
-import com.desive.utilities.Utils;
+import com.desive.utilities.constants.Colors;
 import javafx.animation.FadeTransition;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.control.Hyperlink;
 import javafx.scene.control.Label;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.StackPane;
 import javafx.util.Duration;
 
@@ -35,19 +37,25 @@ import javafx.util.Duration;
 public class ActionTextPane extends StackPane {
 
     private Label actionText;
+    private Hyperlink cancelLink;
     private ImageView graphic;
 
     private FadeTransition ft;
 
-    public ActionTextPane() {
+    public ActionTextPane(String cancelText) {
 
         actionText = new Label("Test");
         graphic = new ImageView(new Image("assets/icons/editor_action_info_icon.png"));
         actionText.setGraphic(graphic);
-        actionText.setTextFill(Utils.getDefaultTextColor());
+        actionText.setTextFill(Colors.DEFAULT_TEXT);
         actionText.setAlignment(Pos.CENTER);
         actionText.setPadding(new Insets(0, 0, 0, 5));
-        getChildren().add(actionText);
+        cancelLink = new Hyperlink(cancelText);
+        cancelLink.setVisible(false);
+        cancelLink.managedProperty().bind(cancelLink.visibleProperty());
+        HBox content = new HBox(5, actionText, cancelLink);
+        content.setAlignment(Pos.CENTER);
+        getChildren().add(content);
         setAlignment(Pos.CENTER);
 
         ft = new FadeTransition(Duration.millis(500), graphic);
@@ -63,6 +71,17 @@ public class ActionTextPane extends StackPane {
         startTransition();
     }
 
+    // Updates the text without the transition, for progress that changes many times a second
+    public void setProgressText(String text) {
+        actionText.setText(text);
+    }
+
+    // Shows a cancel link next to the text until the action is set to null
+    public void setCancelAction(Runnable cancelAction) {
+        cancelLink.setVisible(cancelAction != null);
+        cancelLink.setOnAction(cancelAction == null ? null : event -> cancelAction.run());
+    }
+
     private void startTransition(){
         ft.playFromStart();
     }
@@ -21,7 +21,9 @@ package com.desive.nodes.editor.toolbars.nodes;
 
 import com.desive.nodes.TabFactory;
 import com.desive.nodes.editor.ImageViewPane;
+import com.desive.utilities.Spellcheck;
 import com.desive.utilities.constants.Dictionary;
+import javafx.application.Platform;
 import javafx.scene.control.Tooltip;
 import javafx.scene.image.Image;
 import javafx.scene.layout.HBox;
@@ -33,6 +35,7 @@ import static javafx.geometry.Pos.CENTER;
 */
 public class SpellcheckPane extends HBox {
 
+    private Dictionary dictionary;
     private ImageViewPane imageView;
 
     private Image okImage = new Image("assets/icons/spellcheck-ok-icon.png"),
@@ -40,21 +43,24 @@ public class SpellcheckPane extends HBox {
 
     public SpellcheckPane(Dictionary dictionary, TabFactory tabFactory) {
 
+        this.dictionary = dictionary;
         imageView = new ImageViewPane(okImage);
 
         imageView.setImage(okImage);
-        imageView.setTooltip(new Tooltip("Spellcheck document"));
-        imageView.setOnMouseClicked(event -> {
-            if(!tabFactory.spellcheckSelectedTab()) {
-                imageView.setImage(badImage);
-            }else{
-                imageView.setImage(okImage);
-            }
-        });
+        Spellcheck.addReadinessListener(readiness -> Platform.runLater(() -> showReadiness(readiness)));
+        showReadiness(Spellcheck.getReadiness());
+        imageView.setOnMouseClicked(event -> tabFactory.spellcheckSelectedTab(
+                checked -> imageView.setImage(checked ? okImage : badImage)));
         setAlignment(CENTER);
         getChildren().add(imageView);
     }
 
+    // The icon is dimmed while LanguageTool loads, checks started meanwhile wait for it
+    private void showReadiness(Spellcheck.Readiness readiness) {
+        boolean loading = readiness == Spellcheck.Readiness.LOADING;
+        imageView.setOpacity(loading ? 0.5 : 1);
+        imageView.setTooltip(new Tooltip(loading ? dictionary.TOOLBAR_EDITOR_SPELLCHECK_LOADING_TOOLTIP : dictionary.TOOLBAR_EDITOR_SPELLCHECK_TOOLTIP));
+    }
 
 
 }
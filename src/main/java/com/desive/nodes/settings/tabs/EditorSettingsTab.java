@@ -22,6 +22,7 @@ package com.desive.nodes.settings.tabs;
 import com.desive.utilities.Settings;
 import com.desive.utilities.constants.Dictionary;
 import javafx.geometry.Pos;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 import javafx.scene.control.Tooltip;
@@ -36,22 +37,35 @@ public class EditorSettingsTab extends SettingsTab {
 
     private Label editorHighlightRefreshRateLabel;
     private TextField editorHighlightRefreshRateField = new TextField(String.valueOf(Settings.EDITOR_HIGHLIGHT_REFRESH_RATE));
+    private CheckBox viewportHighlighting, liveSpellcheck, grammarCheck;
 
     public EditorSettingsTab(Dictionary dictionary) {
         super(dictionary.SETTINGS_EDITOR_TAB_HEADER_LABEL, dictionary);
 
         this.languageDictionary = dictionary;
         editorHighlightRefreshRateLabel = new Label(dictionary.SETTINGS_EDITOR_REFRESH_RATE_LABEL + " ");
+        viewportHighlighting = new CheckBox(dictionary.SETTINGS_EDITOR_VIEWPORT_HIGHLIGHTING_LABEL);
+        liveSpellcheck = new CheckBox(dictionary.SETTINGS_EDITOR_LIVE_SPELLCHECK_LABEL);
+        grammarCheck = new CheckBox(dictionary.SETTINGS_EDITOR_GRAMMAR_CHECK_LABEL);
 
         this.addHighlightRefreshRateBox(0, 0);
+        this.addViewportHighlightingCheckBox(0, 1);
+        this.addLiveSpellcheckCheckBox(0, 2);
+        this.addGrammarCheckCheckBox(0, 3);
 
-        this.apply.setOnAction(e ->
-                Settings.setEditorHighlightRefreshRate(Integer.parseInt(this.editorHighlightRefreshRateField.getText()))
-        );
+        this.apply.setOnAction(e -> {
+            Settings.setEditorHighlightRefreshRate(Integer.parseInt(this.editorHighlightRefreshRateField.getText()));
+            Settings.setEditorViewportHighlighting(this.viewportHighlighting.isSelected());
+            Settings.setEditorLiveSpellcheck(this.liveSpellcheck.isSelected());
+            Settings.setEditorGrammarCheck(this.grammarCheck.isSelected());
+        });
 
-        this.reset.setOnAction(e ->
-                editorHighlightRefreshRateField.setText(String.valueOf(Settings.EDITOR_HIGHLIGHT_REFRESH_RATE))
-        );
+        this.reset.setOnAction(e -> {
+            editorHighlightRefreshRateField.setText(String.valueOf(Settings.EDITOR_HIGHLIGHT_REFRESH_RATE));
+            viewportHighlighting.setSelected(Settings.EDITOR_VIEWPORT_HIGHLIGHTING);
+            liveSpellcheck.setSelected(Settings.EDITOR_LIVE_SPELLCHECK);
+            grammarCheck.setSelected(Settings.EDITOR_GRAMMAR_CHECK);
+        });
 
     }
 
@@ -70,4 +84,25 @@ public class EditorSettingsTab extends SettingsTab {
         this.grid.add(viewRefreshRateBox, col, row);
     }
 
+    private void addViewportHighlightingCheckBox(int col, int row) {
+        this.viewportHighlighting.setTooltip(new Tooltip(languageDictionary.SETTINGS_EDITOR_VIEWPORT_HIGHLIGHTING_LABEL_TOOLTIP));
+        this.viewportHighlighting.setTextFill(this.textColor);
+        this.viewportHighlighting.setSelected(Settings.EDITOR_VIEWPORT_HIGHLIGHTING);
+        this.grid.add(this.viewportHighlighting, col, row);
+    }
+
+    private void addLiveSpellcheckCheckBox(int col, int row) {
+        this.liveSpellcheck.setTooltip(new Tooltip(languageDictionary.SETTINGS_EDITOR_LIVE_SPELLCHECK_LABEL_TOOLTIP));
+        this.liveSpellcheck.setTextFill(this.textColor);
+        this.liveSpellcheck.setSelected(Settings.EDITOR_LIVE_SPELLCHECK);
+        this.grid.add(this.liveSpellcheck, col, row);
+    }
+
+    private void addGrammarCheckCheckBox(int col, int row) {
+        this.grammarCheck.setTooltip(new Tooltip(languageDictionary.SETTINGS_EDITOR_GRAMMAR_CHECK_LABEL_TOOLTIP));
+        this.grammarCheck.setTextFill(this.textColor);
+        this.grammarCheck.setSelected(Settings.EDITOR_GRAMMAR_CHECK);
+        this.grid.add(this.grammarCheck, col, row);
+    }
+
 }
@@ -19,7 +19,7 @@
 
 package com.desive.nodes.settings.tabs;
 
-import com.desive.utilities.Utils;
+import com.desive.utilities.constants.Colors;
 import com.desive.utilities.constants.Dictionary;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -36,7 +36,7 @@ import javafx.scene.paint.Paint;
 */
 class SettingsTab extends Tab {
 
-    Paint textColor = Utils.getDefaultTextColor();
+    Paint textColor = Colors.DEFAULT_TEXT;
 
     BorderPane container = new BorderPane(), buttonContainer = new BorderPane();
     GridPane grid = new GridPane();
@@ -37,6 +37,7 @@ public class ViewSettingsTab extends SettingsTab {
     private final Dictionary dict = Dictionary.getInstance();
 
     private CheckBox alwaysPrettifyCode = new CheckBox(dict.SETTINGS_VIEW_PRETTIFY_CODE_LABEL);
+    private CheckBox incrementalRendering = new CheckBox(dict.SETTINGS_VIEW_INCREMENTAL_RENDERING_LABEL);
     private Label viewRefreshRateLabel = new Label(dict.SETTINGS_VIEW_REFRESH_RATE_LABEL + " ");
     private TextField viewRefreshRateField = new TextField(String.valueOf(Settings.VIEW_REFRESH_RATE));
 
@@ -45,6 +46,7 @@ public class ViewSettingsTab extends SettingsTab {
 
         this.addPrettifyCodeCheckBox(0, 0);
         this.addRefreshRateBox(1, 0);
+        this.addIncrementalRenderingCheckBox(0, 1);
 
     }
 
@@ -58,6 +60,17 @@ public class ViewSettingsTab extends SettingsTab {
         this.grid.add(this.alwaysPrettifyCode, col,row);
     }
 
+    private void addIncrementalRenderingCheckBox(int col, int row) {
+        this.incrementalRendering.setTooltip(new Tooltip(dict.SETTINGS_VIEW_INCREMENTAL_RENDERING_LABEL_TOOLTIP));
+        this.incrementalRendering.setTextFill(this.textColor);
+        this.incrementalRendering.setSelected(Settings.INCREMENTAL_VIEW_RENDERING);
+
+        this.incrementalRendering.setOnAction(e ->
+                Settings.setIncrementalViewRendering(this.incrementalRendering.isSelected())
+        );
+        this.grid.add(this.incrementalRendering, col, row);
+    }
+
     private void addRefreshRateBox(int col, int row) {
         HBox viewRefreshRateBox = new HBox();
         viewRefreshRateBox.setAlignment(CENTER);
@@ -27,6 +27,7 @@ import com.desive.nodes.editor.toolbars.EditorToolBar;
 import com.desive.nodes.editor.toolbars.menus.ToolBarMenus;
 import com.desive.stages.dialogs.DialogFactory;
 import com.desive.utilities.Settings;
+import com.desive.utilities.StartupProfiler;
 import com.desive.utilities.constants.Dictionary;
 import javafx.collections.FXCollections;
 import javafx.event.Event;
@@ -58,18 +59,22 @@ public class EditorStage extends Stage {
 
     public EditorStage(Dictionary dictionary, DialogFactory dialogFactory, Stage settingsStage) {
 
+        StartupProfiler.begin("markdown parser");
         markdownParser = new MarkdownParser();
+        StartupProfiler.begin("tabs");
         tabFactory = new TabFactory(dictionary, dialogFactory, this);
 
         settings = new Settings(tabFactory);
 
         tabFactory.setMarkdownParser(markdownParser);
 
+        StartupProfiler.begin("toolbars");
         ToolBarMenus toolBarMenus = new ToolBarMenus(dictionary);
         menuToolbar = new EditorMenuToolBar(tabFactory, dialogFactory, dictionary, toolBarMenus, markdownParser,this, settingsStage);
         toolBar = new EditorToolBar(dictionary, tabFactory);
         tabFactory.setEditorToolBar(toolBar);
 
+        StartupProfiler.begin("scene");
         BorderPane root = new BorderPane(tabFactory.getTabPane());
         root.setTop(menuToolbar);
         root.setBottom(toolBar);
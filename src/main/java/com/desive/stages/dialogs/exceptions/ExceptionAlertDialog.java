@@ -20,7 +20,7 @@
 package com.desive.stages.dialogs.exceptions;
 
 import com.desive.stages.dialogs.AlertDialog;
-import com.desive.utilities.Utils;
+import com.desive.utilities.constants.Colors;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextArea;
@@ -59,7 +59,7 @@ public class ExceptionAlertDialog extends AlertDialog {
         TextArea textArea = new TextArea();
         GridPane expContent = new GridPane();
         Label label = new Label("Stacktrace:");
-        label.setTextFill(Utils.getDefaultTextColor());
+        label.setTextFill(Colors.DEFAULT_TEXT);
         initOwner(ownerStage);
         setTitle(title);
         setHeaderText(header);
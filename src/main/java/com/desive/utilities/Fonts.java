@@ -19,12 +19,21 @@
 
 package com.desive.utilities;
 
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
 import javafx.scene.text.Font;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.awt.*;
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
+import java.util.Map;
+import java.util.Properties;
 
 /*
  Created by Jack DeSive on 10/27/2017 at 11:11 PM
@@ -41,14 +50,129 @@ public class Fonts {
             COURIER_PRIMAL_BOLD_NAME = "Courier Primal Bold",
             COURIER_PRIMAL_BOLD_ITALICS_NAME = "Courier Primal Bold Italic";
 
+    // Where a font was loaded from by registerFont
+    public enum Source {
+        CACHE,
+        DOWNLOAD,
+        MISSING
+    }
+
+    private static final String CHECKSUMS_FILE = "checksums.properties";
+    private static final int TIMEOUT_MILLIS = 15000, MAX_FONT_BYTES = 10 * 1024 * 1024;
+    private static final double SIZE = 14;
+
     private final Logger logger = LoggerFactory.getLogger(Fonts.class);
 
+    private final File cacheDirectory = new File(Utils.getCacheDirectory(), "fonts");
+    private Properties checksums = null;
+
     public boolean fontExits(String fontName) {
         return Arrays.stream(GraphicsEnvironment.getLocalGraphicsEnvironment().getAvailableFontFamilyNames())
                 .anyMatch(font -> font.equals(fontName));
     }
 
-    public void registerFont(String fontUrl, String name) {
-        Font.loadFont(fontUrl, 14);
+    // The four Courier Primal styles by name, in the order they should be registered
+    public Map<String, String> getCourierPrimalFonts() {
+        Map<String, String> fonts = Maps.newLinkedHashMap();
+        fonts.put(COURIER_PRIMAL_NAME, COURIER_PRIMAL_URL);
+        fonts.put(COURIER_PRIMAL_ITALICS_NAME, COURIER_PRIMAL_ITALICS_URL);
+        fonts.put(COURIER_PRIMAL_BOLD_NAME, COURIER_PRIMAL_BOLD_URL);
+        fonts.put(COURIER_PRIMAL_BOLD_ITALICS_NAME, COURIER_PRIMAL_BOLD_ITALICS_URL);
+        return fonts;
+    }
+
+    /*
+     Loads the copy in the cache directory, the network is only used when it is not there or
+     no longer matches the checksum recorded when it was downloaded. Blocks on the download,
+     call it off the application thread.
+    */
+    public synchronized Source registerFont(String fontUrl, String name) {
+        File cached = new File(cacheDirectory, name + ".ttf");
+        if(isValid(cached) && load(cached))
+            return Source.CACHE;
+
+        try {
+            download(fontUrl, cached);
+            if(load(cached))
+                return Source.DOWNLOAD;
+        } catch (IOException e) {
+            logger.warn("Failed to download the font \'{}\' from {}: {}", name, fontUrl, e.getMessage());
+        }
+        return Source.MISSING;
+    }
+
+    private boolean load(File file) {
+        if(Font.loadFont(file.toURI().toString(), SIZE) != null)
+            return true;
+        logger.warn("Could not load the font file {}", file.getPath());
+        return false;
+    }
+
+    private boolean isValid(File file) {
+        if(!file.isFile())
+            return false;
+        String expected = getChecksums().getProperty(file.getName());
+        try {
+            if(expected != null && expected.equals(checksum(file)))
+                return true;
+        } catch (IOException e) {
+            logger.error("Failed to read the cached font " + file.getPath(), e);
+        }
+        logger.debug("Cached font {} does not match its checksum", file.getPath());
+        return false;
+    }
+
+    // Downloads next to the target first so a broken download never replaces a cached font
+    private void download(String fontUrl, File target) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(fontUrl).openConnection();
+        connection.setConnectTimeout(TIMEOUT_MILLIS);
+        connection.setReadTimeout(TIMEOUT_MILLIS);
+        if(connection.getResponseCode() != HttpURLConnection.HTTP_OK)
+            throw new IOException("Server replied " + connection.getResponseCode());
+
+        Files.createDirectories(cacheDirectory.toPath());
+        File temp = new File(target.getPath() + ".tmp");
+        try(InputStream in = connection.getInputStream(); OutputStream out = new FileOutputStream(temp)) {
+            byte[] buffer = new byte[8192];
+            long total = 0;
+            for(int read; (read = in.read(buffer)) != -1; ) {
+                total += read;
+                if(total > MAX_FONT_BYTES)
+                    throw new IOException("Font is larger than " + MAX_FONT_BYTES + " bytes");
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp.toPath());
+            throw e;
+        } finally {
+            connection.disconnect();
+        }
+        String checksum = checksum(temp);
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        getChecksums().setProperty(target.getName(), checksum);
+        try(OutputStream out = new FileOutputStream(new File(cacheDirectory, CHECKSUMS_FILE))) {
+            getChecksums().store(out, "SHA-256 of the cached fonts");
+        }
+    }
+
+    private Properties getChecksums() {
+        if(checksums == null) {
+            checksums = new Properties();
+            File file = new File(cacheDirectory, CHECKSUMS_FILE);
+            if(file.isFile()) {
+                try(InputStream in = new FileInputStream(file)) {
+                    checksums.load(in);
+                } catch (IOException e) {
+                    logger.error("Failed to read the font checksums " + file.getPath(), e);
+                }
+            }
+        }
+        return checksums;
     }
+
+    private static String checksum(File file) throws IOException {
+        return Hashing.sha256().hashBytes(Files.readAllBytes(file.toPath())).toString();
+    }
+
 }
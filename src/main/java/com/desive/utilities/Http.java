@@ -19,50 +19,225 @@
 
 package com.desive.utilities;
 
-import java.io.BufferedReader;
-import java.io.DataOutputStream;
+import com.google.common.io.CountingInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.Reader;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 /*
  Created by Jack DeSive on 10/14/2017 at 2:36 PM
 */
 public class Http {
 
+    private static final Logger logger = LoggerFactory.getLogger(Http.class);
+
+    private static final int TIMEOUT_MILLIS = 15000;
+    private static final int MAX_BODY_BYTES = 16 * 1024 * 1024;
+    private static final int CHUNK_CHARS = 64 * 1024;
+
+    // Plain GETs are kept on disk and revalidated with the validators of the cached copy
+    private static HttpCache cache = new HttpCache(new File(Utils.getCacheDirectory(), "http"));
+
+    // Lets tests keep the cache out of the user's cache directory
+    static void setCache(HttpCache httpCache) {
+        cache = httpCache;
+    }
+
     public static String request(String target, Map<String, String> parameters, Map<String, String> headers, String body, String method) throws IOException {
+        StringBuilder response = new StringBuilder();
+        request(target, parameters, headers, body, method, new Call(), response::append);
+        return response.toString();
+    }
+
+    /*
+     Streams the decoded body to the receiver in chunks of up to CHUNK_CHARS characters, so
+     a large response never has to be held in one String by the caller.
+
+     The connection is never disconnected, fully reading and closing the response hands the
+     socket back to the keep-alive pool of HttpURLConnection so the next request to the
+     same host skips the connect and TLS handshake.
+    */
+    public static void request(String target, Map<String, String> parameters, Map<String, String> headers, String body, String method,
+                               Call call, TextReceiver receiver) throws IOException {
 
         URL targetUrl = new URL(target + createParameterString(parameters));
+        boolean cacheable = method.equalsIgnoreCase("GET") && (body == null || body.isEmpty());
+        HttpCache.Entry cached = cacheable ? cache.get(targetUrl.toString()) : null;
+
         HttpURLConnection connection = (HttpURLConnection) targetUrl.openConnection();
+        call.setConnection(connection);
 
         if(headers != null && !headers.isEmpty()){
             headers.forEach(connection::setRequestProperty);
         }
 
         connection.setRequestMethod(method.toUpperCase());
-        connection.setConnectTimeout(15000);
-        connection.setReadTimeout(15000);
-
-        if(body != null && !body.equals("")) {
-            connection.setDoOutput(true);
-            DataOutputStream outputStream = new DataOutputStream(connection.getOutputStream());
-            outputStream.writeBytes(body);
-            outputStream.flush();
-            outputStream.close();
+        connection.setConnectTimeout(TIMEOUT_MILLIS);
+        connection.setReadTimeout(TIMEOUT_MILLIS);
+        connection.setRequestProperty("Accept-Encoding", "gzip, deflate");
+        if(cached != null) {
+            if(cached.getETag() != null)
+                connection.setRequestProperty("If-None-Match", cached.getETag());
+            if(cached.getLastModified() != null)
+                connection.setRequestProperty("If-Modified-Since", cached.getLastModified());
         }
 
-        BufferedReader inputStream = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-        String inputLine;
-        StringBuilder response = new StringBuilder();
-        while ((inputLine = inputStream.readLine()) != null) {
-            response.append(inputLine).append("\n");
+        try {
+            if(body != null && !body.equals("")) {
+                connection.setDoOutput(true);
+                try(OutputStream outputStream = connection.getOutputStream()) {
+                    outputStream.write(body.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+
+            int status = connection.getResponseCode();
+            if(status == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+                drain(connection.getInputStream());
+                logger.debug("{} was not modified, using the cached copy", targetUrl);
+                for(int i = 0; i < cached.getBody().length(); i += CHUNK_CHARS) {
+                    call.checkCancelled();
+                    receiver.text(cached.getBody().substring(i, Math.min(cached.getBody().length(), i + CHUNK_CHARS)));
+                }
+                return;
+            }
+            if(status >= HttpURLConnection.HTTP_BAD_REQUEST) {
+                drain(connection.getErrorStream());
+                throw new IOException("Server returned HTTP response code: " + status + " for URL: " + targetUrl);
+            }
+
+            long length = connection.getContentLengthLong();
+            if(length > MAX_BODY_BYTES) {
+                drain(connection.getInputStream());
+                throw new IOException("Response of " + targetUrl + " is larger than " + MAX_BODY_BYTES + " bytes");
+            }
+
+            String eTag = connection.getHeaderField("ETag"), lastModified = connection.getHeaderField("Last-Modified");
+            String cacheControl = connection.getHeaderField("Cache-Control");
+            boolean store = cacheable && status == HttpURLConnection.HTTP_OK && (cacheControl == null || !cacheControl.contains("no-store"));
+            StringBuilder copy = store && (eTag != null || lastModified != null) ? new StringBuilder() : null;
+
+            CountingInputStream received = new CountingInputStream(connection.getInputStream());
+            try(CountingInputStream decoded = new CountingInputStream(decode(received, connection.getContentEncoding()));
+                Reader reader = new InputStreamReader(decoded, getCharset(connection.getContentType()))) {
+                char[] buffer = new char[CHUNK_CHARS];
+                int filled = 0;
+                for(int read; (read = reader.read(buffer, filled, buffer.length - filled)) != -1; ) {
+                    call.checkCancelled();
+                    // Counts the decoded bytes, a small compressed body can still expand past the limit
+                    if(decoded.getCount() > MAX_BODY_BYTES)
+                        throw new IOException("Response of " + targetUrl + " is larger than " + MAX_BODY_BYTES + " bytes");
+                    receiver.progress(received.getCount(), length);
+                    filled += read;
+                    if(filled == buffer.length) {
+                        emit(buffer, filled, copy, receiver);
+                        filled = 0;
+                    }
+                }
+                emit(buffer, filled, copy, receiver);
+            }
+
+            if(store)
+                cache.put(targetUrl.toString(), eTag, lastModified, copy == null ? null : copy.toString());
+        } catch (IOException e) {
+            // Cancelling closes the socket under the read, report that rather than the socket error
+            call.checkCancelled();
+            throw e;
+        }
+    }
+
+    private static void emit(char[] buffer, int length, StringBuilder copy, TextReceiver receiver) {
+        if(length == 0)
+            return;
+        String chunk = new String(buffer, 0, length);
+        if(copy != null)
+            copy.append(chunk);
+        receiver.text(chunk);
+    }
+
+    private static InputStream decode(InputStream inputStream, String contentEncoding) throws IOException {
+        if(contentEncoding == null)
+            return inputStream;
+        switch(contentEncoding.trim().toLowerCase()) {
+            case "gzip":
+            case "x-gzip":
+                return new GZIPInputStream(inputStream);
+            case "deflate":
+                return new InflaterInputStream(inputStream);
+            default:
+                return inputStream;
+        }
+    }
+
+    // The charset parameter of the content type, markdown is served without one often enough that UTF-8 is the default
+    private static Charset getCharset(String contentType) {
+        if(contentType != null) {
+            for(String parameter : contentType.split(";")) {
+                String[] pair = parameter.trim().split("=", 2);
+                if(pair.length == 2 && pair[0].trim().equalsIgnoreCase("charset")) {
+                    try {
+                        return Charset.forName(pair[1].trim().replace("\"", ""));
+                    } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+                        logger.debug("Unknown charset in \'{}\', falling back to UTF-8", contentType);
+                    }
+                }
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    // Reads what is left so the connection can be reused
+    private static void drain(InputStream inputStream) throws IOException {
+        if(inputStream == null)
+            return;
+        try(InputStream in = inputStream) {
+            byte[] buffer = new byte[8192];
+            while(in.read(buffer) != -1);
+        }
+    }
+
+    // Lets another thread stop a request, even one blocked on a read
+    public static class Call {
+
+        private volatile boolean cancelled = false;
+        private volatile HttpURLConnection connection;
+
+        public void cancel() {
+            cancelled = true;
+            HttpURLConnection current = connection;
+            if(current != null)
+                current.disconnect();
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        private void setConnection(HttpURLConnection connection) throws InterruptedIOException {
+            this.connection = connection;
+            checkCancelled();
+        }
+
+        private void checkCancelled() throws InterruptedIOException {
+            if(cancelled)
+                throw new InterruptedIOException("Request was cancelled");
         }
-        inputStream.close();
 
-        connection.disconnect();
-        return response.toString();
     }
 
     private static String createParameterString(Map<String, String> parameters){
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2017  TextMd
+ *
+ * This file is part of TextMd.
+ *
+ * TextMd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.desive.utilities;
+
+import com.google.common.hash.Hashing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Properties;
+
+/*
+ Responses of plain GET requests on disk, one body and one properties file with the url
+ and its validators per url. Only responses with an ETag or Last-Modified are kept since
+ there is nothing to revalidate the others with. The oldest entries are removed once the
+ bodies take up more than the limit.
+*/
+public class HttpCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpCache.class);
+
+    private static final String BODY = ".body", PROPERTIES = ".properties";
+    private static final long MAX_SIZE = 64 * 1024 * 1024;
+
+    private final File directory;
+
+    public HttpCache(File directory) {
+        this.directory = directory;
+    }
+
+    public synchronized Entry get(String url) {
+        String key = key(url);
+        File body = new File(directory, key + BODY), properties = new File(directory, key + PROPERTIES);
+        if(!body.isFile() || !properties.isFile())
+            return null;
+
+        Properties validators = new Properties();
+        try(InputStream in = new FileInputStream(properties)) {
+            validators.load(in);
+            if(!url.equals(validators.getProperty("url")))
+                return null;
+            // Eviction goes by the time an entry was last used
+            body.setLastModified(System.currentTimeMillis());
+            return new Entry(validators.getProperty("etag"), validators.getProperty("lastModified"),
+                    new String(Files.readAllBytes(body.toPath()), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            logger.error("Failed to read the cached response of " + url, e);
+            return null;
+        }
+    }
+
+    public synchronized void put(String url, String eTag, String lastModified, String content) {
+        String key = key(url);
+        File body = new File(directory, key + BODY), properties = new File(directory, key + PROPERTIES);
+        if(eTag == null && lastModified == null) {
+            // A stale copy would never be revalidated again
+            body.delete();
+            properties.delete();
+            return;
+        }
+
+        Properties validators = new Properties();
+        validators.setProperty("url", url);
+        if(eTag != null)
+            validators.setProperty("etag", eTag);
+        if(lastModified != null)
+            validators.setProperty("lastModified", lastModified);
+        try {
+            Files.createDirectories(directory.toPath());
+            File temp = new File(directory, key + BODY + ".tmp");
+            Files.write(temp.toPath(), content.getBytes(StandardCharsets.UTF_8));
+            Files.move(temp.toPath(), body.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            try(OutputStream out = new FileOutputStream(properties)) {
+                validators.store(out, null);
+            }
+            logger.debug("Cached the response of {}", url);
+        } catch (IOException e) {
+            logger.error("Failed to cache the response of " + url, e);
+            body.delete();
+            properties.delete();
+        }
+        evict();
+    }
+
+    private void evict() {
+        File[] bodies = directory.listFiles((dir, name) -> name.endsWith(BODY));
+        if(bodies == null)
+            return;
+        long size = Arrays.stream(bodies).mapToLong(File::length).sum();
+        Arrays.sort(bodies, Comparator.comparingLong(File::lastModified));
+        for(int i = 0; i < bodies.length && size > MAX_SIZE; i++) {
+            size -= bodies[i].length();
+            String key = bodies[i].getName().substring(0, bodies[i].getName().length() - BODY.length());
+            bodies[i].delete();
+            new File(directory, key + PROPERTIES).delete();
+        }
+    }
+
+    private static String key(String url) {
+        return Hashing.sha256().hashString(url, StandardCharsets.UTF_8).toString();
+    }
+
+    public static class Entry {
+
+        private final String eTag, lastModified, body;
+
+        Entry(String eTag, String lastModified, String body) {
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+            this.body = body;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        public String getBody() {
+            return body;
+        }
+
+    }
+
+}
@@ -36,9 +36,13 @@ public class Settings {
     // Settings View
     public static boolean ALWAYS_PRETTIFY_CODE_VIEW = false;
     public static int VIEW_REFRESH_RATE = 1;
+    public static boolean INCREMENTAL_VIEW_RENDERING = false;
 
     // Settings Editor
     public static int EDITOR_HIGHLIGHT_REFRESH_RATE = 50;
+    public static boolean EDITOR_VIEWPORT_HIGHLIGHTING = true;
+    public static boolean EDITOR_LIVE_SPELLCHECK = true;
+    public static boolean EDITOR_GRAMMAR_CHECK = false;
 
     // General Settings
     public static boolean LOAD_FONTS_AT_RUNTIME = true;
@@ -58,12 +62,32 @@ public class Settings {
         ((EditorTab) tabFactory.getSelectedTab()).getEditorPane().createSyncTimer(value);
     }
 
+    public static void setIncrementalViewRendering(boolean value) {
+        LOGGER.debug("Setting \'Incremental View Rendering\' to \'{}\'", value);
+        INCREMENTAL_VIEW_RENDERING = value;
+    }
+
     public static void setEditorHighlightRefreshRate(int value) {
         LOGGER.debug("Setting \'Editor Highlight Refresh Rate\' to \'{}\'", value);
         EDITOR_HIGHLIGHT_REFRESH_RATE = value;
         ((EditorTab) tabFactory.getSelectedTab()).getEditorPane().createEditorHighlightSubscription(value);
     }
 
+    public static void setEditorViewportHighlighting(boolean value) {
+        LOGGER.debug("Setting \'Editor Viewport Highlighting\' to \'{}\'", value);
+        EDITOR_VIEWPORT_HIGHLIGHTING = value;
+    }
+
+    public static void setEditorLiveSpellcheck(boolean value) {
+        LOGGER.debug("Setting \'Editor Live Spellcheck\' to \'{}\'", value);
+        EDITOR_LIVE_SPELLCHECK = value;
+    }
+
+    public static void setEditorGrammarCheck(boolean value) {
+        LOGGER.debug("Setting \'Editor Grammar Check\' to \'{}\'", value);
+        EDITOR_GRAMMAR_CHECK = value;
+    }
+
     public static void setLoadFontsAtRuntime(boolean value) {
         LOGGER.debug("Setting \'Load Fonts at runtime\' to \'{}\'", value);
         LOAD_FONTS_AT_RUNTIME = value;
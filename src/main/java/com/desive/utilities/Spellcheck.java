@@ -19,60 +19,347 @@
 
 package com.desive.utilities;
 
+import com.desive.markdown.ProseExtractor;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import org.languagetool.JLanguageTool;
 import org.languagetool.language.AmericanEnglish;
+import org.languagetool.rules.Rule;
 import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.spelling.SpellingCheckRule;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /*
  Created by Jack DeSive on 11/12/2017 at 1:58 PM
 */
 public class Spellcheck {
 
-    /*
-    Language Tool handles caching of the parsed text for quick spell checking.
-    The first use might be a little slow though.
-     */
     private final static Logger logger = LoggerFactory.getLogger(Spellcheck.class);
-    private final static JLanguageTool languageTool = new JLanguageTool(new AmericanEnglish());
-
-    private String[] spellcheckExcluded = {
-            "``",
-            "  ",
-            "\""
-    };
-
-    private String[] spellcheckExcludedTags = {
-            "__",
-            "_",
-            "**",
-            "*",
-            "~~"
-    };
-
-    public List<RuleMatch> check(String text) throws IOException {
-        List<RuleMatch> matches = languageTool.check(text);
-        matches = matches.stream().filter(match -> {
-            String str = text.substring(match.getFromPos(), match.getToPos());
-            if(Lists.newArrayList(spellcheckExcluded).contains(str)){
-                return false;
+
+    // Spelling only checks the dictionary spelling rules, grammar runs every rule of the language
+    public enum Tier {
+        SPELLING,
+        GRAMMAR
+    }
+
+    public enum Readiness {
+        NOT_LOADED,
+        LOADING,
+        READY
+    }
+
+    /*
+     JLanguageTool is not safe for concurrent use, every worker gets its own instance per tier
+     the first time it checks something. The pool is bounded so there are never more instances
+     than workers, the first one created loads the language resources.
+    */
+    private static final int WORKERS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private static final ExecutorService executor = Executors.newFixedThreadPool(WORKERS, runnable -> {
+        Thread thread = new Thread(runnable, "spellcheck");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final ThreadLocal<Map<Tier, JLanguageTool>> languageTools = ThreadLocal.withInitial(() -> Maps.newEnumMap(Tier.class));
+
+    // Results of earlier sessions, written back every few minutes once warmed up and when the application exits
+    private static final String LANGUAGE = "en-US";
+    private static final int MAX_SUGGESTIONS = 5;
+    private static final long PERSISTENT_CACHE_SIZE = 16 * 1024 * 1024;
+    // Bump whenever languageTool changes which rules a tier runs, cached matches of the old rules are never looked up again
+    private static final int RULE_FILTER_VERSION = 1;
+    private static final SpellcheckCache persistentCache = new SpellcheckCache(
+            new File(Utils.getCacheDirectory(), "spellcheck.cache"), LANGUAGE, JLanguageTool.VERSION, RULE_FILTER_VERSION, PERSISTENT_CACHE_SIZE);
+    private static final long SAVE_INTERVAL_MINUTES = 5;
+    private static final ScheduledExecutorService cacheSaver = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "spellcheck-cache");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(persistentCache::save, "spellcheck-cache"));
+    }
+
+    private static final AtomicReference<Readiness> readiness = new AtomicReference<>(Readiness.NOT_LOADED);
+    private static final List<Consumer<Readiness>> readinessListeners = new CopyOnWriteArrayList<>();
+
+    private final ProseExtractor proseExtractor = new ProseExtractor();
+
+    // The matches of every block checked by the last checkChanges of a tier keyed by the block text, offsets are relative to the block
+    private final Map<Tier, Map<String, List<Match>>> blockCaches = Maps.newEnumMap(Tier.class);
+
+    private volatile UserDictionary dictionary = UserDictionary.forUnsavedDocuments();
+
+    /*
+     Loads the persistent cache and creates a spelling instance that is run once on a worker
+     so the rules and dictionaries are loaded before the first real check. Only the first
+     call does anything.
+    */
+    public static void warmUp() {
+        if(!readiness.compareAndSet(Readiness.NOT_LOADED, Readiness.LOADING))
+            return;
+        fireReadinessChanged();
+        executor.execute(() -> {
+            long start = System.currentTimeMillis();
+            persistentCache.load();
+            try {
+                languageTool(Tier.SPELLING).check("Warm up");
+            } catch (IOException e) {
+                logger.error("Failed to warm up the spellchecker", e);
             }
-            for(String ex : spellcheckExcludedTags){
-                if(str.startsWith(ex) || str.endsWith(ex)){
-                    return false;
+            readiness.set(Readiness.READY);
+            fireReadinessChanged();
+            // A crash or a kill skips the shutdown hook, at most the last few minutes are lost then
+            cacheSaver.scheduleWithFixedDelay(persistentCache::save, SAVE_INTERVAL_MINUTES, SAVE_INTERVAL_MINUTES, TimeUnit.MINUTES);
+            logger.debug("Spellchecker ready after {}ms", System.currentTimeMillis() - start);
+        });
+    }
+
+    public static Readiness getReadiness() {
+        return readiness.get();
+    }
+
+    // Listeners are called on the thread that changed the state
+    public static void addReadinessListener(Consumer<Readiness> listener) {
+        readinessListeners.add(listener);
+    }
+
+    private static void fireReadinessChanged() {
+        Readiness current = readiness.get();
+        readinessListeners.forEach(listener -> listener.accept(current));
+    }
+
+    // Always checks every block, neither the last pass nor the persistent cache are used
+    public List<Misspelling> check(String text, Tier tier) throws IOException {
+        List<Misspelling> misspellings = check(text, tier, Collections.emptyMap(), Maps.newHashMap(), false).getMisspellings();
+        logger.debug("Found " + misspellings.size() + " misspellings in current document");
+        return misspellings;
+    }
+
+    /*
+     Checks the prose of the text block by block. Only blocks whose text is not in the cache
+     of the last pass or of earlier sessions are checked, the cached matches of the others are
+     moved to the block's new offset. Not thread safe, call it from one thread at a time.
+    */
+    public Result checkChanges(String text, Tier tier) throws IOException {
+        Map<String, List<Match>> cache = Maps.newHashMap();
+        Result result = check(text, tier, blockCaches.getOrDefault(tier, Collections.emptyMap()), cache, true);
+        // Blocks that are gone are dropped so the cache never outgrows the document
+        blockCaches.put(tier, cache);
+        logger.debug("Checked {} of {} blocks, found {} misspellings", result.getCheckedBlocks(), result.getBlocks(), result.getMisspellings().size());
+        return result;
+    }
+
+    public UserDictionary getDictionary() {
+        return dictionary;
+    }
+
+    public void setDictionary(UserDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    /*
+     Known words are blanked out before the spelling tier sees a block so LanguageTool never
+     looks for suggestions for them. The grammar tier gets the prose as it is, blanks would
+     upset its whitespace rules, so its matches on known words are dropped afterwards, as are
+     cached matches from before a word was added.
+    */
+    private Result check(String text, Tier tier, Map<String, List<Match>> previous, Map<String, List<Match>> cache, boolean persistent) throws IOException {
+        warmUp();
+        UserDictionary dictionary = this.dictionary;
+        List<ProseExtractor.ProseBlock> blocks = proseExtractor.extract(text);
+        List<String> checkedTexts = Lists.newArrayListWithCapacity(blocks.size());
+        List<String> unchecked = Lists.newArrayList();
+        for(ProseExtractor.ProseBlock block : blocks) {
+            String prose = tier == Tier.SPELLING ? dictionary.mask(block.getText()) : block.getText();
+            checkedTexts.add(prose);
+            if(cache.containsKey(prose))
+                continue;
+            List<Match> matches = previous.get(prose);
+            if(matches == null && persistent)
+                matches = persistentCache.get(tier, prose);
+            cache.put(prose, matches);
+            if(matches == null)
+                unchecked.add(prose);
+        }
+        checkInParallel(unchecked, tier, cache, persistent);
+
+        // Blocks are in document order so the misspellings are too
+        List<Misspelling> misspellings = Lists.newArrayList();
+        for(int i = 0; i < blocks.size(); i++) {
+            ProseExtractor.ProseBlock block = blocks.get(i);
+            String prose = block.getText();
+            for(Match match : cache.get(checkedTexts.get(i))) {
+                if(dictionary.contains(prose, match.getFromPos(), match.getToPos()))
+                    continue;
+                misspellings.add(new Misspelling(block.toDocumentOffset(match.getFromPos()), block.toDocumentEnd(match.getToPos()), match));
+            }
+        }
+        return new Result(misspellings, unchecked.size(), blocks.size());
+    }
+
+    // Splits the blocks into a couple of batches per worker and puts the matches of every block into the cache
+    private void checkInParallel(List<String> blocks, Tier tier, Map<String, List<Match>> cache, boolean persistent) throws IOException {
+        if(blocks.isEmpty())
+            return;
+
+        int batchSize = Math.max(1, (blocks.size() + 2 * WORKERS - 1) / (2 * WORKERS));
+        List<List<String>> batches = Lists.partition(blocks, batchSize);
+        List<Future<List<List<Match>>>> results = Lists.newArrayListWithCapacity(batches.size());
+        for(List<String> batch : batches)
+            results.add(executor.submit(() -> checkBatch(batch, tier)));
+
+        try {
+            for(int i = 0; i < batches.size(); i++) {
+                List<String> batch = batches.get(i);
+                List<List<Match>> matches = results.get(i).get();
+                for(int j = 0; j < batch.size(); j++) {
+                    cache.put(batch.get(j), matches.get(j));
+                    if(persistent)
+                        persistentCache.put(tier, batch.get(j), matches.get(j));
                 }
             }
-            logger.debug("Found misspelling \'{}\' at {} to {}", str, match.getFromPos(), match.getToPos());
-            return true;
-        }).collect(Collectors.toList());
-        logger.debug("Found " + matches.size() + " misspellings in current document");
+        } catch (InterruptedException e) {
+            results.forEach(result -> result.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while spellchecking");
+        } catch (ExecutionException e) {
+            results.forEach(result -> result.cancel(true));
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+    }
+
+    private static List<List<Match>> checkBatch(List<String> batch, Tier tier) throws IOException {
+        JLanguageTool tool = languageTool(tier);
+        List<List<Match>> matches = Lists.newArrayListWithCapacity(batch.size());
+        for(String block : batch) {
+            List<Match> blockMatches = Lists.newArrayList();
+            for(RuleMatch match : tool.check(block)) {
+                List<String> suggestions = match.getSuggestedReplacements();
+                blockMatches.add(new Match(match.getFromPos(), match.getToPos(), match.getRule().getId(), match.getMessage(),
+                        Lists.newArrayList(suggestions.subList(0, Math.min(MAX_SUGGESTIONS, suggestions.size())))));
+            }
+            matches.add(blockMatches);
+        }
         return matches;
     }
 
+    private static JLanguageTool languageTool(Tier tier) {
+        return languageTools.get().computeIfAbsent(tier, key -> {
+            JLanguageTool tool = new JLanguageTool(new AmericanEnglish());
+            if(key == Tier.SPELLING) {
+                for(Rule rule : tool.getAllRules()) {
+                    if(!(rule instanceof SpellingCheckRule))
+                        tool.disableRule(rule.getId());
+                }
+            }
+            return tool;
+        });
+    }
+
+    // What is kept of a RuleMatch, offsets are relative to the checked block
+    public static class Match {
+
+        private final int fromPos, toPos;
+        private final String ruleId, message;
+        private final List<String> suggestions;
+
+        Match(int fromPos, int toPos, String ruleId, String message, List<String> suggestions) {
+            this.fromPos = fromPos;
+            this.toPos = toPos;
+            this.ruleId = ruleId;
+            this.message = message;
+            this.suggestions = suggestions;
+        }
+
+        public int getFromPos() {
+            return fromPos;
+        }
+
+        public int getToPos() {
+            return toPos;
+        }
+
+        public String getRuleId() {
+            return ruleId;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public List<String> getSuggestions() {
+            return suggestions;
+        }
+
+    }
+
+    // A match at its offset in the whole document
+    public static class Misspelling {
+
+        private final int fromPos, toPos;
+        private final Match match;
+
+        Misspelling(int fromPos, int toPos, Match match) {
+            this.fromPos = fromPos;
+            this.toPos = toPos;
+            this.match = match;
+        }
+
+        public int getFromPos() {
+            return fromPos;
+        }
+
+        public int getToPos() {
+            return toPos;
+        }
+
+        public Match getMatch() {
+            return match;
+        }
+
+    }
+
+    public static class Result {
+
+        private final List<Misspelling> misspellings;
+        private final int checkedBlocks, blocks;
+
+        Result(List<Misspelling> misspellings, int checkedBlocks, int blocks) {
+            this.misspellings = misspellings;
+            this.checkedBlocks = checkedBlocks;
+            this.blocks = blocks;
+        }
+
+        public List<Misspelling> getMisspellings() {
+            return misspellings;
+        }
+
+        public int getCheckedBlocks() {
+            return checkedBlocks;
+        }
+
+        public int getBlocks() {
+            return blocks;
+        }
+
+    }
+
 }
@@ -0,0 +1,243 @@
+/*
+ * Copyright (C) 2017  TextMd
+ *
+ * This file is part of TextMd.
+ *
+ * TextMd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.desive.utilities;
+
+import com.google.common.collect.Lists;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ The spellcheck results of every block checked in earlier sessions, stored in one binary
+ file. Blocks are keyed by a 128 bit hash of the tier, its rule filter and the prose, the file is only used
+ for the language and LanguageTool version that wrote it. The least recently used blocks
+ are evicted once the estimated size of all entries passes the limit.
+
+ File layout: magic, format version, language, LanguageTool version, entry count, then per
+ entry the 16 byte key, the match count and for each match its offsets, rule id, message
+ and suggestions. Counts are ints, strings are an int length followed by their UTF-8 bytes.
+*/
+public class SpellcheckCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpellcheckCache.class);
+
+    private static final int MAGIC = 0x544D5343, FORMAT_VERSION = 2;
+    private static final int KEY_BYTES = 16;
+
+    private final File file;
+    private final String language, ruleSetVersion;
+    private final int ruleFilterVersion;
+    private final long maxSize;
+
+    private final LinkedHashMap<HashCode, List<Spellcheck.Match>> entries = new LinkedHashMap<>(1024, 0.75f, true);
+    private final Object writeLock = new Object();
+    private long size = 0;
+    private boolean loaded = false, modified = false;
+
+    public SpellcheckCache(File file, String language, String ruleSetVersion, int ruleFilterVersion, long maxSize) {
+        this.file = file;
+        this.language = language;
+        this.ruleSetVersion = ruleSetVersion;
+        this.ruleFilterVersion = ruleFilterVersion;
+        this.maxSize = maxSize;
+    }
+
+    public synchronized List<Spellcheck.Match> get(Spellcheck.Tier tier, String prose) {
+        load();
+        List<Spellcheck.Match> matches = entries.get(key(tier, prose));
+        // A hit moves the entry to the most recently used end, that order has to be saved too
+        if(matches != null)
+            modified = true;
+        return matches;
+    }
+
+    public synchronized void put(Spellcheck.Tier tier, String prose, List<Spellcheck.Match> matches) {
+        load();
+        List<Spellcheck.Match> replaced = entries.put(key(tier, prose), matches);
+        if(replaced != null)
+            size -= estimateSize(replaced);
+        size += estimateSize(matches);
+        modified = true;
+        evict();
+    }
+
+    private HashCode key(Spellcheck.Tier tier, String prose) {
+        return Hashing.murmur3_128().newHasher()
+                .putString(language, StandardCharsets.UTF_8)
+                .putString(tier.name(), StandardCharsets.UTF_8)
+                .putInt(ruleFilterVersion)
+                .putString(prose, StandardCharsets.UTF_8)
+                .hash();
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<HashCode, List<Spellcheck.Match>>> eldest = entries.entrySet().iterator();
+        while(size > maxSize && eldest.hasNext()) {
+            size -= estimateSize(eldest.next().getValue());
+            eldest.remove();
+        }
+    }
+
+    // Roughly the bytes the entry takes up in the file
+    private static long estimateSize(List<Spellcheck.Match> matches) {
+        long size = KEY_BYTES + 4;
+        for(Spellcheck.Match match : matches) {
+            size += 8 + 4 + match.getRuleId().length() + 4 + match.getMessage().length() + 4;
+            for(String suggestion : match.getSuggestions())
+                size += 4 + suggestion.length();
+        }
+        return size;
+    }
+
+    // Reads the file the first time the cache is used, a missing, outdated or broken file leaves the cache empty
+    public synchronized void load() {
+        if(loaded)
+            return;
+        loaded = true;
+        if(!file.isFile())
+            return;
+
+        long start = System.currentTimeMillis(), length = file.length();
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if(in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION
+                    || !readString(in, length).equals(language) || !readString(in, length).equals(ruleSetVersion)) {
+                logger.debug("Ignoring spellcheck cache {}, it was written for another version", file.getPath());
+                return;
+            }
+            int count = readCount(in, length);
+            for(int i = 0; i < count; i++) {
+                byte[] key = new byte[KEY_BYTES];
+                in.readFully(key);
+                List<Spellcheck.Match> matches = readMatches(in, length);
+                entries.put(HashCode.fromBytes(key), matches);
+                size += estimateSize(matches);
+            }
+            evict();
+            logger.debug("Loaded {} spellcheck cache entries in {}ms", count, System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            logger.error("Failed to read the spellcheck cache " + file.getPath(), e);
+            entries.clear();
+            size = 0;
+        }
+    }
+
+    // Counts and lengths past the file length can only come from a broken file
+    private static List<Spellcheck.Match> readMatches(DataInputStream in, long fileLength) throws IOException {
+        int count = readCount(in, fileLength);
+        List<Spellcheck.Match> matches = Lists.newArrayListWithCapacity(count);
+        for(int i = 0; i < count; i++) {
+            int fromPos = in.readInt(), toPos = in.readInt();
+            String ruleId = readString(in, fileLength), message = readString(in, fileLength);
+            int suggestionCount = readCount(in, fileLength);
+            List<String> suggestions = Lists.newArrayListWithCapacity(suggestionCount);
+            for(int j = 0; j < suggestionCount; j++)
+                suggestions.add(readString(in, fileLength));
+            matches.add(new Spellcheck.Match(fromPos, toPos, ruleId, message, suggestions));
+        }
+        return matches;
+    }
+
+    private static int readCount(DataInputStream in, long fileLength) throws IOException {
+        int count = in.readInt();
+        if(count < 0 || count > fileLength)
+            throw new IOException("Invalid count " + count);
+        return count;
+    }
+
+    private static String readString(DataInputStream in, long fileLength) throws IOException {
+        int length = readCount(in, fileLength);
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /*
+     Writes the entries from least to most recently used so the order survives a reload,
+     the file is replaced in one move so a crash never leaves half a cache behind. Only
+     copying the entries holds up lookups, the file is written after that.
+    */
+    public void save() {
+        List<Map.Entry<HashCode, List<Spellcheck.Match>>> snapshot;
+        synchronized (this) {
+            if(!modified)
+                return;
+            snapshot = new ArrayList<>(entries.size());
+            entries.forEach((key, matches) -> snapshot.add(new AbstractMap.SimpleImmutableEntry<>(key, matches)));
+            modified = false;
+        }
+
+        synchronized (writeLock) {
+            File temp = new File(file.getPath() + ".tmp");
+            try {
+                Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+                try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(FORMAT_VERSION);
+                    writeString(out, language);
+                    writeString(out, ruleSetVersion);
+                    out.writeInt(snapshot.size());
+                    for(Map.Entry<HashCode, List<Spellcheck.Match>> entry : snapshot) {
+                        out.write(entry.getKey().asBytes());
+                        writeMatches(out, entry.getValue());
+                    }
+                }
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                logger.debug("Saved {} spellcheck cache entries to {}", snapshot.size(), file.getPath());
+            } catch (IOException e) {
+                logger.error("Failed to write the spellcheck cache " + file.getPath(), e);
+                synchronized (this) {
+                    modified = true;
+                }
+            }
+        }
+    }
+
+    private static void writeMatches(DataOutputStream out, List<Spellcheck.Match> matches) throws IOException {
+        out.writeInt(matches.size());
+        for(Spellcheck.Match match : matches) {
+            out.writeInt(match.getFromPos());
+            out.writeInt(match.getToPos());
+            writeString(out, match.getRuleId());
+            writeString(out, match.getMessage());
+            out.writeInt(match.getSuggestions().size());
+            for(String suggestion : match.getSuggestions())
+                writeString(out, suggestion);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+}
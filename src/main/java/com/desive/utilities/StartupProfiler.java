@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2017  TextMd
+ *
+ * This file is part of TextMd.
+ *
+ * TextMd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.desive.utilities;
+
+import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/*
+ Times the phases of the start up on the application thread. A phase runs until the next
+ one begins, finish closes the last one and logs the time of every phase together with
+ the time since main was entered, which is the time to the first editable window.
+*/
+public class StartupProfiler {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupProfiler.class);
+
+    private static final long start = System.nanoTime();
+    private static final Map<String, Long> phases = Maps.newLinkedHashMap();
+    private static String phase = null;
+    private static long phaseStart = start;
+    private static boolean finished = false;
+
+    public static synchronized void begin(String name) {
+        if(finished)
+            return;
+        end();
+        phase = name;
+        phaseStart = System.nanoTime();
+    }
+
+    public static synchronized void finish() {
+        if(finished)
+            return;
+        end();
+        finished = true;
+        logger.info("Started in {}ms ({})", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                phases.entrySet().stream()
+                        .map(entry -> entry.getKey() + ": " + entry.getValue() + "ms")
+                        .collect(Collectors.joining(", ")));
+    }
+
+    private static void end() {
+        if(phase == null)
+            return;
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - phaseStart);
+        phases.merge(phase, millis, Long::sum);
+        logger.debug("Startup phase \'{}\' took {}ms", phase, millis);
+        phase = null;
+    }
+
+}
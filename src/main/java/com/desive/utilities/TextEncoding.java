@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2017  TextMd
+ *
+ * This file is part of TextMd.
+ *
+ * TextMd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.desive.utilities;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/*
+ The charset of a text file and whether it starts with a byte order mark, a UTF-8 file
+ opened with one is saved with one again. UTF-16 is always written with its mark.
+*/
+public final class TextEncoding {
+
+    public static final TextEncoding UTF_8 = new TextEncoding(StandardCharsets.UTF_8, false);
+
+    private final Charset charset;
+    private final boolean byteOrderMark;
+
+    public TextEncoding(Charset charset, boolean byteOrderMark) {
+        this.charset = charset;
+        this.byteOrderMark = byteOrderMark;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    public boolean hasByteOrderMark() {
+        return byteOrderMark;
+    }
+
+    public boolean canEncode(CharSequence text) {
+        return charset.newEncoder().canEncode(text);
+    }
+
+}
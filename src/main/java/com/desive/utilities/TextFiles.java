@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2017  TextMd
+ *
+ * This file is part of TextMd.
+ *
+ * TextMd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.desive.utilities;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BooleanSupplier;
+
+/*
+ Reads text files through a FileChannel and decodes them in fixed size chunks, so opening
+ a large file never builds more than one chunk at a time or scans it with a regex. The
+ charset comes from the byte order mark, files without one are read as UTF-8 when their
+ first block is valid UTF-8 and as windows-1252 otherwise. The editor writes a file back
+ in the encoding it was read with, byte order mark included.
+
+ The channel is read rather than memory mapped, a mapping keeps the file locked on
+ Windows until it is garbage collected and the editor saves back to the same file.
+*/
+public class TextFiles {
+
+    private static final int CHUNK_BYTES = 64 * 1024, CHUNK_CHARS = 64 * 1024;
+    private static final Charset FALLBACK = Charset.forName("windows-1252");
+
+    /*
+     Streams the decoded text in chunks of CHUNK_CHARS characters and returns the encoding it
+     was decoded with, stops with an InterruptedIOException once cancelled returns true.
+    */
+    public static TextEncoding read(File file, BooleanSupplier cancelled, TextReceiver receiver) throws IOException {
+        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long length = channel.size();
+            ByteBuffer bytes = ByteBuffer.allocate(CHUNK_BYTES);
+            CharBuffer chars = CharBuffer.allocate(CHUNK_CHARS);
+
+            channel.read(bytes);
+            bytes.flip();
+            TextEncoding encoding = detectEncoding(bytes);
+            CharsetDecoder decoder = encoding.getCharset().newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            bytes.compact();
+
+            boolean endOfInput = false;
+            while(!endOfInput) {
+                if(cancelled.getAsBoolean())
+                    throw new InterruptedIOException("Reading " + file.getPath() + " was cancelled");
+                endOfInput = channel.read(bytes) == -1;
+                bytes.flip();
+                while(decoder.decode(bytes, chars, endOfInput).isOverflow())
+                    emit(chars, receiver);
+                bytes.compact();
+                receiver.progress(channel.position(), length);
+            }
+            while(decoder.flush(chars).isOverflow())
+                emit(chars, receiver);
+            emit(chars, receiver);
+            return encoding;
+        }
+    }
+
+    // UTF-16 always gets its byte order mark back, without it read would take the file for windows-1252
+    public static Writer newWriter(File file, TextEncoding encoding) throws IOException {
+        Writer writer = Files.newBufferedWriter(file.toPath(), encoding.getCharset());
+        if(encoding.hasByteOrderMark())
+            writer.write('\uFEFF');
+        return writer;
+    }
+
+    /*
+     Looks at the start of the file, a byte order mark is skipped. The check for UTF-8 only
+     fails on invalid sequences, a character cut off at the end of the block is fine.
+    */
+    private static TextEncoding detectEncoding(ByteBuffer bytes) {
+        if(startsWith(bytes, 0xEF, 0xBB, 0xBF)) {
+            bytes.position(bytes.position() + 3);
+            return new TextEncoding(StandardCharsets.UTF_8, true);
+        }
+        if(startsWith(bytes, 0xFE, 0xFF)) {
+            bytes.position(bytes.position() + 2);
+            return new TextEncoding(StandardCharsets.UTF_16BE, true);
+        }
+        if(startsWith(bytes, 0xFF, 0xFE)) {
+            bytes.position(bytes.position() + 2);
+            return new TextEncoding(StandardCharsets.UTF_16LE, true);
+        }
+        CharsetDecoder utf8 = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        CharBuffer sink = CharBuffer.allocate(CHUNK_CHARS);
+        ByteBuffer sample = bytes.duplicate();
+        while(true) {
+            CoderResult result = utf8.decode(sample, sink, false);
+            if(result.isError())
+                return new TextEncoding(FALLBACK, false);
+            if(result.isUnderflow())
+                return TextEncoding.UTF_8;
+            sink.clear();
+        }
+    }
+
+    private static boolean startsWith(ByteBuffer bytes, int... prefix) {
+        if(bytes.remaining() < prefix.length)
+            return false;
+        for(int i = 0; i < prefix.length; i++) {
+            if((bytes.get(bytes.position() + i) & 0xFF) != prefix[i])
+                return false;
+        }
+        return true;
+    }
+
+    private static void emit(CharBuffer chars, TextReceiver receiver) {
+        chars.flip();
+        if(chars.hasRemaining())
+            receiver.text(chars.toString());
+        chars.clear();
+    }
+
+}
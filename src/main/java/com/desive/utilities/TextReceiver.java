@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2017  TextMd
+ *
+ * This file is part of TextMd.
+ *
+ * TextMd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.desive.utilities;
+
+/*
+ Gets text piece by piece on the thread that reads it, from a url or a file, so large
+ content never has to be held in one String before it reaches the editor.
+*/
+public interface TextReceiver {
+
+    void text(String chunk);
+
+    // The bytes read so far and the total, -1 if it is not known
+    default void progress(long read, long length) {
+    }
+
+}
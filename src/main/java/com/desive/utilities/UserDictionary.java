@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2017  TextMd
+ *
+ * This file is part of TextMd.
+ *
+ * TextMd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.desive.utilities;
+
+import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+/*
+ The words the spellchecker should accept for the documents of one workspace, the folder
+ a document is saved in. Words are kept one per line in a .textmd-dictionary file in that
+ folder, documents that were never saved share the one in the cache directory.
+
+ The words live in a trie of parallel arrays (a node is a label, its first child and its
+ next sibling) so a token can be looked up straight from the text without copying it.
+*/
+public class UserDictionary {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserDictionary.class);
+
+    private static final String FILE_NAME = ".textmd-dictionary";
+    private static final Map<File, UserDictionary> workspaces = Maps.newConcurrentMap();
+
+    private final File file;
+
+    private char[] labels = new char[256];
+    private int[] firstChild = new int[256], nextSibling = new int[256];
+    private boolean[] terminal = new boolean[256];
+    private int nodes = 1, words = 0;
+
+    private UserDictionary(File file) {
+        this.file = file;
+        Arrays.fill(firstChild, -1);
+        Arrays.fill(nextSibling, -1);
+        load();
+    }
+
+    // Unsaved documents only have the relative default file name, which must not resolve against the working directory
+    public static UserDictionary forDocument(File document) {
+        if(!document.isAbsolute() || !document.isFile())
+            return forUnsavedDocuments();
+        return forWorkspace(document.getParentFile());
+    }
+
+    public static UserDictionary forUnsavedDocuments() {
+        return forWorkspace(Utils.getCacheDirectory());
+    }
+
+    private static UserDictionary forWorkspace(File workspace) {
+        return workspaces.computeIfAbsent(new File(workspace, FILE_NAME).getAbsoluteFile(), UserDictionary::new);
+    }
+
+    private void load() {
+        if(!file.isFile())
+            return;
+        try {
+            Files.readAllLines(file.toPath(), StandardCharsets.UTF_8).forEach(line -> insert(line.trim()));
+            logger.debug("Loaded {} words from {}", words, file.getPath());
+        } catch (IOException e) {
+            logger.error("Failed to read the dictionary " + file.getPath(), e);
+        }
+    }
+
+    // Adds the word and appends it to the workspace file, returns false if it was known already
+    public synchronized boolean add(String word) throws IOException {
+        word = word.trim();
+        if(!insert(word))
+            return false;
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), Collections.singletonList(word), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        return true;
+    }
+
+    public synchronized boolean isEmpty() {
+        return words == 0;
+    }
+
+    /*
+     Whether text[start, end) is a known word, a capitalized word also matches its lower case
+     entry so words at the start of a sentence are accepted too.
+    */
+    public synchronized boolean contains(CharSequence text, int start, int end) {
+        if(start >= end || start >= text.length())
+            return false;
+        if(lookup(text, start, end, false))
+            return true;
+        return Character.isUpperCase(text.charAt(start)) && lookup(text, start, end, true);
+    }
+
+    /*
+     Blanks out every known word of the text with spaces so it never reaches LanguageTool,
+     offsets stay the same. Returns the text itself when it has no known words.
+    */
+    public synchronized String mask(String text) {
+        if(words == 0)
+            return text;
+        char[] masked = null;
+        int i = 0;
+        while(i < text.length()) {
+            if(!isWordCharacter(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            int end = i;
+            while(end < text.length() && (isWordCharacter(text.charAt(end)) || isJoiner(text, end)))
+                end++;
+            if(contains(text, i, end)) {
+                if(masked == null)
+                    masked = text.toCharArray();
+                Arrays.fill(masked, i, end, ' ');
+            }
+            i = end;
+        }
+        return masked == null ? text : new String(masked);
+    }
+
+    // Whether the text is one token as mask splits it, only those can ever be matched
+    public static boolean isWord(String text) {
+        if(text.isEmpty() || !isWordCharacter(text.charAt(0)))
+            return false;
+        for(int i = 1; i < text.length(); i++) {
+            if(!isWordCharacter(text.charAt(i)) && !isJoiner(text, i))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean isWordCharacter(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    // Apostrophes, hyphens and dots only join two word characters: don't, x-ray, node.js
+    private static boolean isJoiner(String text, int index) {
+        char c = text.charAt(index);
+        return (c == '\'' || c == '-' || c == '.')
+                && index + 1 < text.length() && isWordCharacter(text.charAt(index + 1));
+    }
+
+    private boolean lookup(CharSequence text, int start, int end, boolean lowerFirst) {
+        int node = 0;
+        for(int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            node = child(node, i == start && lowerFirst ? Character.toLowerCase(c) : c);
+            if(node == -1)
+                return false;
+        }
+        return terminal[node];
+    }
+
+    private int child(int node, char label) {
+        for(int child = firstChild[node]; child != -1; child = nextSibling[child]) {
+            if(labels[child] == label)
+                return child;
+        }
+        return -1;
+    }
+
+    private boolean insert(String word) {
+        if(word.isEmpty())
+            return false;
+        int node = 0;
+        for(int i = 0; i < word.length(); i++) {
+            int next = child(node, word.charAt(i));
+            if(next == -1) {
+                next = newNode(word.charAt(i));
+                nextSibling[next] = firstChild[node];
+                firstChild[node] = next;
+            }
+            node = next;
+        }
+        if(terminal[node])
+            return false;
+        terminal[node] = true;
+        words++;
+        return true;
+    }
+
+    private int newNode(char label) {
+        if(nodes == labels.length) {
+            int capacity = labels.length * 2;
+            labels = Arrays.copyOf(labels, capacity);
+            terminal = Arrays.copyOf(terminal, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            Arrays.fill(firstChild, nodes, capacity, -1);
+            Arrays.fill(nextSibling, nodes, capacity, -1);
+        }
+        labels[nodes] = label;
+        return nodes++;
+    }
+
+}
@@ -19,9 +19,7 @@
 
 package com.desive.utilities;
 
-import javafx.scene.paint.Color;
-import javafx.scene.paint.Paint;
-
+import java.io.File;
 import java.util.Collections;
 import java.util.Scanner;
 
@@ -30,14 +28,14 @@ import java.util.Scanner;
 */
 public class Utils {
 
-    private static ClassLoader loader;
+    public static final String HTML_DOC_TYPE_START = "<!DOCTYPE html>\n<html>\n";
+    public static final String HTML_DOC_TYPE_END = "\n</html>";
 
-    public Utils() {
-        loader = getClass().getClassLoader();
-    }
+    private static final ClassLoader loader = Utils.class.getClassLoader();
 
-    public static Paint getDefaultTextColor() {
-        return Color.valueOf("f8f8f2");
+    // Where caches that outlive a session are kept
+    public static File getCacheDirectory() {
+        return new File(System.getProperty("user.home"), ".textmd");
     }
 
     public static String getDefaultFileName() {
@@ -75,7 +73,7 @@ public class Utils {
     }
 
     public static String wrapWithHtmlDocType(String content) {
-        return "<!DOCTYPE html>\n<html>\n" + content + "\n</html>";
+        return HTML_DOC_TYPE_START + content + HTML_DOC_TYPE_END;
     }
 
     public static void printProgress(long total, long current) {
@@ -37,6 +37,17 @@ public class Dictionary {
     public final String STAGE_SETTINGS_TITLE = "Settings";
 
     // Editor Toolbar
+    public final String TOOLBAR_EDITOR_SPELLCHECK_TOOLTIP = "Spellcheck document",
+            TOOLBAR_EDITOR_SPELLCHECK_LOADING_TOOLTIP = "Loading the spellchecker...",
+            TOOLBAR_EDITOR_CANCEL_LINK = "Cancel";
+
+    // Editor
+    public final String EDITOR_LOADING_PLACEHOLDER = "Loading...";
+
+    // Editor Context Menu
+    public final String CONTEXT_MENU_EDITOR_ADD_TO_DICTIONARY_ITEM = "Add to dictionary",
+            CONTEXT_MENU_EDITOR_NO_SUGGESTIONS_ITEM = "No suggestions";
+
     public final String TOOLBAR_EDITOR_FILE_MENU = "File",
             TOOLBAR_EDITOR_EDIT_MENU = "Edit",
             TOOLBAR_EDITOR_VIEW_MENU = "View",
@@ -98,6 +109,8 @@ public class Dictionary {
             SETTINGS_VIEW_REFRESH_RATE_LABEL = "View refresh rate:",
             SETTINGS_VIEW_PRETTIFY_CODE_LABEL = "Always Code Prettify",
             SETTINGS_VIEW_PRETTIFY_CODE_LABEL_TOOLTIP = "Use Google Code Prettify by default",
+            SETTINGS_VIEW_INCREMENTAL_RENDERING_LABEL = "Incremental Rendering",
+            SETTINGS_VIEW_INCREMENTAL_RENDERING_LABEL_TOOLTIP = "Only re-parse and update the blocks of the document that changed",
             SETTINGS_VIEW_TAB_HEADER_LABEL = "View",
             SETTINGS_APPLY_BUTTON_LABEL = "Apply",
             SETTINGS_RESET_BUTTON_LABEL = "Reset";
@@ -106,6 +119,12 @@ public class Dictionary {
     public final String SETTINGS_EDITOR_REFRESH_RATE_LABEL = "Highlight refresh rate:",
             SETTINGS_EDITOR_REFRESH_RATE_LABEL_TOOLTIP = "How fast to refresh the editors highlighting",
             SETTINGS_EDITOR_REFRESH_RATE_FIELD_TOOLTIP = "Default: 500 millisecond(s)",
+            SETTINGS_EDITOR_VIEWPORT_HIGHLIGHTING_LABEL = "Highlight visible text first",
+            SETTINGS_EDITOR_VIEWPORT_HIGHLIGHTING_LABEL_TOOLTIP = "Highlight the visible part of large documents first and the rest in the background",
+            SETTINGS_EDITOR_LIVE_SPELLCHECK_LABEL = "Spellcheck as you type",
+            SETTINGS_EDITOR_LIVE_SPELLCHECK_LABEL_TOOLTIP = "Check the changed paragraphs in the background whenever you stop typing",
+            SETTINGS_EDITOR_GRAMMAR_CHECK_LABEL = "Check grammar and style",
+            SETTINGS_EDITOR_GRAMMAR_CHECK_LABEL_TOOLTIP = "Run every LanguageTool rule after the spelling check, this is a lot slower",
             SETTINGS_EDITOR_TAB_HEADER_LABEL = "Editor";
 
     // Settings General Tab
@@ -129,6 +148,7 @@ public class Dictionary {
             DIALOG_EXCEPTION_OPENING_MARKDOWN_CONTENT = "Error opening Markdown",
             DIALOG_EXCEPTION_OPENING_MARKDOWN_URL_CONTENT = "Error opening Markdown from URL",
             DIALOG_EXCEPTION_SPELLCHECK_CONTENT = "Error spellchecking document",
+            DIALOG_EXCEPTION_ADD_TO_DICTIONARY_CONTENT = "Error adding the word to the dictionary",
             DIALOG_IMPORT_URL_TITLE = "Import from URL",
             DIALOG_IMPORT_URL_CONTENT = "Enter a url to pull markdown from.",
             DIALOG_EXPORT_SUCCESS_TITLE = "Exported Successfully",
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2017  TextMd
+ *
+ * This file is part of TextMd.
+ *
+ * TextMd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.desive.markdown;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/*
+ Edits random documents line by line the way the editor reports changes and checks
+ that the incremental html always equals a full parse of the same text.
+*/
+public class IncrementalMarkdownParserTest {
+
+    private static final String[] LINES = {
+            "Plain text with a [foo] reference.",
+            "See [bar][] and [Foo] again.",
+            "![image][baz]",
+            "[foo]: /foo",
+            "[bar]: /bar \"Title\"",
+            "[baz]: /baz.png",
+            "- item with [bar]",
+            "1. ordered item",
+            "  continued",
+            "```",
+            "```java",
+            "~~~~",
+            "code with [foo]",
+            "<pre>",
+            "</pre>",
+            "<div>",
+            "</div>",
+            "<!-- comment",
+            "-->",
+            "",
+            "",
+            ""
+    };
+
+    @Test
+    public void matchesFullParseAfterRandomEdits() {
+        for(int seed = 0; seed < 50; seed++)
+            editRandomly(new Random(seed), seed);
+    }
+
+    private void editRandomly(Random random, int seed) {
+        MarkdownParser markdownParser = new MarkdownParser();
+        IncrementalMarkdownParser incrementalParser = new IncrementalMarkdownParser(markdownParser);
+        List<String> lines = Lists.newArrayList();
+        for(int i = 20 + random.nextInt(100); i > 0; i--)
+            lines.add(randomLine(random));
+
+        for(int render = 0; render < 40; render++) {
+            for(int edits = 1 + random.nextInt(3); edits > 0; edits--)
+                editLine(random, lines, incrementalParser);
+            String markdown = String.join("\n", lines);
+            assertEquals("Seed " + seed + ", render " + render,
+                    markdownParser.convertToHTML(markdown),
+                    incrementalParser.convertToHTML(markdown, incrementalParser.getChangeCount()));
+        }
+    }
+
+    // Inserts, removes or replaces one line and reports it like a text change of the editor
+    private void editLine(Random random, List<String> lines, IncrementalMarkdownParser incrementalParser) {
+        int line = random.nextInt(lines.size()), offset = 0;
+        for(int i = 0; i < line; i++)
+            offset += lines.get(i).length() + 1;
+
+        switch(random.nextInt(3)) {
+            case 0:
+                String inserted = randomLine(random);
+                lines.add(line, inserted);
+                incrementalParser.textChanged(offset, 0, inserted.length() + 1);
+                break;
+            case 1:
+                if(lines.size() > 1) {
+                    boolean last = line == lines.size() - 1;
+                    String removed = lines.remove(line);
+                    incrementalParser.textChanged(last ? offset - 1 : offset, removed.length() + 1, 0);
+                }
+                break;
+            default:
+                String replacement = randomLine(random);
+                incrementalParser.textChanged(offset, lines.get(line).length(), replacement.length());
+                lines.set(line, replacement);
+        }
+    }
+
+    private String randomLine(Random random) {
+        return LINES[random.nextInt(LINES.length)];
+    }
+
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2017  TextMd
+ *
+ * This file is part of TextMd.
+ *
+ * TextMd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.desive.utilities;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/*
+ Runs Http.request against a local HttpServer, covering the cache revalidation, the
+ content encodings, the charset of the content type and the body size limit.
+*/
+public class HttpTest {
+
+    private static final String MARKDOWN = "# Café\n\nServed by the test server.";
+    private static final int TOO_LARGE = 16 * 1024 * 1024 + 1;
+
+    @ClassRule
+    public static TemporaryFolder cacheDirectory = new TemporaryFolder();
+
+    private static HttpServer server;
+    private static String url;
+    private static final AtomicInteger notModified = new AtomicInteger(0);
+
+    @BeforeClass
+    public static void startServer() throws IOException {
+        Http.setCache(new HttpCache(cacheDirectory.getRoot()));
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/cached", exchange -> {
+            if("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().set("ETag", "\"v1\"");
+            respond(exchange, null, MARKDOWN.getBytes(StandardCharsets.UTF_8));
+        });
+        server.createContext("/gzip", exchange -> {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try(OutputStream out = new GZIPOutputStream(compressed)) {
+                out.write(MARKDOWN.getBytes(StandardCharsets.UTF_8));
+            }
+            respond(exchange, "gzip", compressed.toByteArray());
+        });
+        server.createContext("/deflate", exchange -> {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try(OutputStream out = new DeflaterOutputStream(compressed)) {
+                out.write(MARKDOWN.getBytes(StandardCharsets.UTF_8));
+            }
+            respond(exchange, "deflate", compressed.toByteArray());
+        });
+        server.createContext("/latin1", exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "text/markdown; charset=ISO-8859-1");
+            respond(exchange, null, MARKDOWN.getBytes(StandardCharsets.ISO_8859_1));
+        });
+        server.createContext("/large", exchange -> respond(exchange, null, new byte[TOO_LARGE]));
+        server.createContext("/bomb", exchange -> {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try(OutputStream out = new GZIPOutputStream(compressed)) {
+                out.write(new byte[TOO_LARGE]);
+            }
+            respond(exchange, "gzip", compressed.toByteArray());
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        server.stop(0);
+    }
+
+    private static void respond(HttpExchange exchange, String contentEncoding, byte[] body) throws IOException {
+        if(contentEncoding != null)
+            exchange.getResponseHeaders().set("Content-Encoding", contentEncoding);
+        exchange.sendResponseHeaders(200, body.length);
+        try(OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String get(String path) throws IOException {
+        return Http.request(url + path, null, null, null, "GET");
+    }
+
+    @Test
+    public void revalidatesCachedResponses() throws IOException {
+        assertEquals(MARKDOWN, get("/cached"));
+        assertEquals(0, notModified.get());
+        assertEquals(MARKDOWN, get("/cached"));
+        assertEquals(1, notModified.get());
+    }
+
+    @Test
+    public void decodesContentEncodings() throws IOException {
+        assertEquals(MARKDOWN, get("/gzip"));
+        assertEquals(MARKDOWN, get("/deflate"));
+    }
+
+    @Test
+    public void decodesTheCharsetOfTheContentType() throws IOException {
+        assertEquals(MARKDOWN, get("/latin1"));
+    }
+
+    @Test
+    public void rejectsOversizedBodies() {
+        for(String path : Arrays.asList("/large", "/bomb")) {
+            try {
+                get(path);
+                fail("The body of " + path + " was accepted");
+            } catch (IOException e) {
+                assertTrue(e.getMessage().contains("larger than"));
+            }
+        }
+    }
+
+}